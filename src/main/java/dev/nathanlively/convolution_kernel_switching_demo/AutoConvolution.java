@@ -0,0 +1,120 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.apache.arrow.memory.util.CommonUtil;
+
+import java.util.List;
+
+/**
+ * {@link Convolution} that runs each call on whichever engine the cost model expects to be faster for that signal
+ * length, kernel length and switching pattern. The model counts the FFT work each engine's block plan implies:
+ * overlap-save transforms one block per output period, including the kernel tail, while overlap-add transforms one
+ * segment per input period, so overlap-add wins when kernels are long compared to the switching period.
+ * <p>
+ * With switching the engines differ in how the outgoing kernel's tail ends (see {@link OverlapAddAdapter}); use
+ * {@link #select} to find out which behavior a call will get, or pick an engine directly when that matters.
+ */
+public class AutoConvolution implements Convolution {
+    private final OverlapSaveAdapter overlapSave;
+    private final OverlapAddAdapter overlapAdd = new OverlapAddAdapter();
+
+    public AutoConvolution() {
+        this(SwitchCrossfade.none());
+    }
+
+    /**
+     * @param crossfade passed to the overlap-save engine; overlap-add needs none because its tails already overlap
+     */
+    public AutoConvolution(SwitchCrossfade crossfade) {
+        this.overlapSave = new OverlapSaveAdapter(crossfade);
+    }
+
+    @Override
+    public double[] with(double[] signal, double[] kernel) {
+        return engine(signal, List.of(kernel), Integer.MAX_VALUE).with(signal, kernel);
+    }
+
+    @Override
+    public double[] with(double[] signal, List<double[]> kernels, int periodSamples) {
+        return engine(signal, kernels, periodSamples).with(signal, kernels, periodSamples);
+    }
+
+    /**
+     * Always overlap-save, which shares each input block's spectrum across the kernels.
+     */
+    @Override
+    public List<double[]> withEach(double[] signal, List<double[]> kernels) {
+        return overlapSave.withEach(signal, kernels);
+    }
+
+    private Convolution engine(double[] signal, List<double[]> kernels, int periodSamples) {
+        // Invalid input goes to overlap-save, which reports it
+        if (signal.length == 0 || kernels.isEmpty() || kernels.getFirst().length == 0 || periodSamples <= 0) {
+            return overlapSave;
+        }
+        // Few-tap kernels skip the FFT altogether on the overlap-save path
+        if (kernels.stream().allMatch(kernel -> SparseKernel.detect(kernel) != null)) {
+            return overlapSave;
+        }
+        Engine engine = select(signal.length, kernels.getFirst().length, kernels.size(), periodSamples);
+        return engine == Engine.OVERLAP_ADD ? overlapAdd : overlapSave;
+    }
+
+    public static Engine select(int signalLength, int kernelLength, int kernelCount, int periodSamples) {
+        double overlapSaveCost = estimatedCost(Engine.OVERLAP_SAVE, signalLength, kernelLength, kernelCount,
+                periodSamples);
+        double overlapAddCost = estimatedCost(Engine.OVERLAP_ADD, signalLength, kernelLength, kernelCount,
+                periodSamples);
+        return overlapAddCost < overlapSaveCost ? Engine.OVERLAP_ADD : Engine.OVERLAP_SAVE;
+    }
+
+    /**
+     * Relative cost of a call, in units of one butterfly: {@code F log2 F} per transform and {@code F} per spectrum
+     * multiply or overlap-add of an {@code F}-point block. Crossfades are not counted.
+     */
+    public static double estimatedCost(Engine engine, int signalLength, int kernelLength, int kernelCount,
+                                       int periodSamples) {
+        if (signalLength <= 0 || kernelLength <= 0 || kernelCount <= 0 || periodSamples <= 0) {
+            throw new IllegalArgumentException("lengths, kernel count and period must be positive");
+        }
+        long resultLength = (long) signalLength + kernelLength - 1;
+        boolean switching = kernelCount > 1 || periodSamples < signalLength;
+        return switch (engine) {
+            case OVERLAP_SAVE -> {
+                if (!switching) {
+                    int fftSize = SignalTransformer.calculateOptimalFftSize(signalLength, kernelLength);
+                    long blocks = ceilDiv(resultLength, fftSize - kernelLength + 1);
+                    yield transformCost(fftSize) + blocks * (2 * transformCost(fftSize) + fftSize);
+                }
+                int fftSize = CommonUtil.nextPowerOfTwo(periodSamples + kernelLength - 1);
+                long blocks = ceilDiv(resultLength, periodSamples);
+                yield kernelCount * transformCost(fftSize) + blocks * (2 * transformCost(fftSize) + fftSize);
+            }
+            case OVERLAP_ADD -> {
+                int period = kernelCount == 1 ? Integer.MAX_VALUE : periodSamples;
+                int segmentLength = OverlapAddAdapter.segmentLength(signalLength, kernelLength, period);
+                int fftSize = CommonUtil.nextPowerOfTwo(segmentLength + kernelLength - 1);
+                long segments = segmentCount(signalLength, segmentLength, period);
+                yield kernelCount * transformCost(fftSize) + segments * (2 * transformCost(fftSize) + 2.0 * fftSize);
+            }
+        };
+    }
+
+    private static long segmentCount(int signalLength, int segmentLength, int period) {
+        long fullPeriods = signalLength / period;
+        long remainder = signalLength % period;
+        return fullPeriods * ceilDiv(period, segmentLength) + ceilDiv(remainder, segmentLength);
+    }
+
+    private static double transformCost(int fftSize) {
+        return fftSize * (double) Integer.numberOfTrailingZeros(fftSize);
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return (dividend + divisor - 1) / divisor;
+    }
+
+    public enum Engine {
+        OVERLAP_SAVE,
+        OVERLAP_ADD
+    }
+}
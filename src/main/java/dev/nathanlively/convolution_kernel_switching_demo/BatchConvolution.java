@@ -0,0 +1,126 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.apache.commons.numbers.complex.Complex;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Convolves many short, independent clips (notifications, UI sounds) without paying per-clip setup. Jobs are grouped by
+ * kernel and by size class, each group's kernel is transformed once, and the clips of a group are packed end to end
+ * with {@code kernelLength - 1} zeros between them, so one overlap-save pass covers many clips and no clip's tail
+ * reaches the next. Packed batches run in parallel.
+ * <p>
+ * Kernels are grouped by identity, so jobs should share kernel arrays rather than pass equal copies.
+ */
+public class BatchConvolution {
+    // Long enough to amortize the transforms, short enough to split work across cores
+    private static final int BATCH_SAMPLES = 1 << 16;
+
+    public record Job(double[] signal, double[] kernel) {
+        public Job {
+            SignalTransformer.validate(signal, kernel);
+        }
+    }
+
+    public List<double[]> withAll(List<double[]> signals, double[] kernel) {
+        return withAll(signals.stream().map(signal -> new Job(signal, kernel)).toList());
+    }
+
+    /**
+     * @return each job's full convolution, in job order
+     */
+    public List<double[]> withAll(List<Job> jobs) {
+        double[][] results = new double[jobs.size()][];
+        List<Batch> batches = new ArrayList<>();
+        for (List<Integer> group : groups(jobs).values()) {
+            batches.addAll(pack(jobs, group));
+        }
+        batches.parallelStream().forEach(batch -> batch.run(jobs, results));
+        return List.of(results);
+    }
+
+    private static Map<GroupKey, List<Integer>> groups(List<Job> jobs) {
+        Map<double[], Integer> kernelIds = new IdentityHashMap<>();
+        Map<GroupKey, List<Integer>> groups = new LinkedHashMap<>();
+        for (int index = 0; index < jobs.size(); index++) {
+            Job job = Objects.requireNonNull(jobs.get(index), "job cannot be null");
+            int kernelId = kernelIds.computeIfAbsent(job.kernel(), kernel -> kernelIds.size());
+            // Clips within a factor of two of each other share a class, so their batches fill evenly
+            int sizeClass = 32 - Integer.numberOfLeadingZeros(job.signal().length - 1);
+            groups.computeIfAbsent(new GroupKey(kernelId, sizeClass), key -> new ArrayList<>()).add(index);
+        }
+        return groups;
+    }
+
+    private static List<Batch> pack(List<Job> jobs, List<Integer> group) {
+        double[] kernel = jobs.get(group.getFirst()).kernel();
+        int gap = kernel.length - 1;
+        List<Integer> bySize = group.stream()
+                .sorted(Comparator.comparingInt(index -> jobs.get(index).signal().length))
+                .toList();
+        long groupLength = bySize.stream().mapToLong(index -> jobs.get(index).signal().length + (long) gap).sum();
+        int fftSize = SignalTransformer.calculateOptimalFftSize((int) Math.min(BATCH_SAMPLES, groupLength),
+                kernel.length);
+        Complex[] kernelTransform = SignalTransformer.fft(SignalTransformer.pad(kernel, fftSize));
+
+        List<Batch> batches = new ArrayList<>();
+        List<Integer> members = new ArrayList<>();
+        long streamLength = 0;
+        for (int index : bySize) {
+            int clipLength = jobs.get(index).signal().length + gap;
+            if (!members.isEmpty() && streamLength + clipLength > BATCH_SAMPLES) {
+                batches.add(new Batch(List.copyOf(members), kernel.length, fftSize, kernelTransform));
+                members.clear();
+                streamLength = 0;
+            }
+            members.add(index);
+            streamLength += clipLength;
+        }
+        batches.add(new Batch(List.copyOf(members), kernel.length, fftSize, kernelTransform));
+        return batches;
+    }
+
+    private record GroupKey(int kernelId, int sizeClass) {
+    }
+
+    private record Batch(List<Integer> members, int kernelLength, int fftSize, Complex[] kernelTransform) {
+        void run(List<Job> jobs, double[][] results) {
+            int gap = kernelLength - 1;
+            int streamLength = members.stream().mapToInt(index -> jobs.get(index).signal().length + gap).sum();
+            int blockSize = fftSize - kernelLength + 1;
+            int totalBlocks = (streamLength + blockSize - 1) / blockSize;
+
+            // Leading history of kernelLength - 1 zeros, then each clip followed by its tail's worth of zeros
+            double[] paddedStream = new double[gap + totalBlocks * blockSize + fftSize];
+            int position = gap;
+            for (int index : members) {
+                double[] signal = jobs.get(index).signal();
+                System.arraycopy(signal, 0, paddedStream, position, signal.length);
+                position += signal.length + gap;
+            }
+
+            double[] output = new double[totalBlocks * blockSize];
+            for (int blockIndex = 0; blockIndex < totalBlocks; blockIndex++) {
+                int outputStartIndex = blockIndex * blockSize;
+                double[] blockResult = SignalTransformer.processConvolutionBlock(
+                        paddedStream, outputStartIndex, fftSize, kernelTransform);
+                System.arraycopy(blockResult, gap, output, outputStartIndex, blockSize);
+            }
+
+            int start = 0;
+            for (int index : members) {
+                int resultLength = jobs.get(index).signal().length + gap;
+                double[] result = new double[resultLength];
+                System.arraycopy(output, start, result, 0, resultLength);
+                results[index] = result;
+                start += resultLength;
+            }
+        }
+    }
+}
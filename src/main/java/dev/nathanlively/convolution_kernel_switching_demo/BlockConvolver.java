@@ -0,0 +1,11 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+/**
+ * A streaming convolution engine that turns each {@code blockSize()}-sample input block into the matching output
+ * block, so engines with different internals are interchangeable behind a {@link ConvolutionPlan}.
+ */
+public interface BlockConvolver {
+    int blockSize();
+
+    double[] process(double[] block);
+}
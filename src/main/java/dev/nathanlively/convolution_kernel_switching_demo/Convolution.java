@@ -5,4 +5,14 @@ import java.util.List;
 public interface Convolution {
     double[] with(double[] signal, double[] kernel);
     double[] with(double[] signal, List<double[]> kernels, int periodSamples);
+
+    /**
+     * Convolves one signal with each kernel separately, e.g. to audition a source through many impulse responses.
+     * The results are in kernel order.
+     */
+    default List<double[]> withEach(double[] signal, List<double[]> kernels) {
+        return kernels.stream()
+                .map(kernel -> with(signal, kernel))
+                .toList();
+    }
 }
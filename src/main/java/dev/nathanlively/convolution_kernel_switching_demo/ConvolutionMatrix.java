@@ -0,0 +1,137 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.apache.commons.numbers.complex.Complex;
+
+import java.util.Arrays;
+
+/**
+ * N x M filter matrix for multichannel reverbs and speaker arrays: output j is the sum over inputs i of
+ * input_i convolved with kernel_ij. Built on overlap-save, but each input block is transformed once, the products are
+ * accumulated in the frequency domain and each output gets a single inverse FFT per block, so the cost is dominated by
+ * the N * M complex multiply-adds rather than N * M convolutions.
+ */
+public class ConvolutionMatrix {
+    private final double[][][] kernels;
+    private final int inputCount;
+    private final int outputCount;
+    private final int maxKernelLength;
+
+    /**
+     * @param kernels {@code kernels[i][j]} filters input {@code i} into output {@code j}
+     */
+    public ConvolutionMatrix(double[][][] kernels) {
+        if (kernels.length == 0 || kernels[0].length == 0) {
+            throw new IllegalArgumentException("kernel matrix cannot be empty");
+        }
+        this.inputCount = kernels.length;
+        this.outputCount = kernels[0].length;
+        this.kernels = new double[inputCount][outputCount][];
+        int longest = 0;
+        for (int i = 0; i < inputCount; i++) {
+            if (kernels[i].length != outputCount) {
+                throw new IllegalArgumentException("every input must have one kernel per output");
+            }
+            for (int j = 0; j < outputCount; j++) {
+                if (kernels[i][j].length == 0) {
+                    throw new IllegalArgumentException("kernels cannot be empty");
+                }
+                this.kernels[i][j] = kernels[i][j].clone();
+                longest = Math.max(longest, kernels[i][j].length);
+            }
+        }
+        this.maxKernelLength = longest;
+    }
+
+    public int inputCount() {
+        return inputCount;
+    }
+
+    public int outputCount() {
+        return outputCount;
+    }
+
+    /**
+     * @return one signal per output, each as long as the longest input plus the longest kernel minus one
+     */
+    public double[][] with(double[][] inputs) {
+        if (inputs.length != inputCount) {
+            throw new IllegalArgumentException("expected " + inputCount + " inputs but got " + inputs.length);
+        }
+        int signalLength = Arrays.stream(inputs).mapToInt(input -> input.length).max().orElseThrow();
+        if (signalLength == 0) {
+            throw new IllegalArgumentException("inputs cannot all be empty");
+        }
+        int fftSize = SignalTransformer.calculateOptimalFftSize(signalLength, maxKernelLength);
+        int blockSize = fftSize - maxKernelLength + 1;
+        int resultLength = signalLength + maxKernelLength - 1;
+
+        double[][][] kernelReal = new double[inputCount][outputCount][];
+        double[][][] kernelImaginary = new double[inputCount][outputCount][];
+        double[][] paddedInputs = new double[inputCount][];
+        for (int i = 0; i < inputCount; i++) {
+            for (int j = 0; j < outputCount; j++) {
+                Complex[] transform = SignalTransformer.fft(SignalTransformer.pad(kernels[i][j], fftSize));
+                kernelReal[i][j] = realParts(transform);
+                kernelImaginary[i][j] = imaginaryParts(transform);
+            }
+            paddedInputs[i] = SignalTransformer.pad(inputs[i], maxKernelLength - 1, fftSize);
+        }
+
+        double[][] outputs = new double[outputCount][resultLength];
+        double[][] inputReal = new double[inputCount][];
+        double[][] inputImaginary = new double[inputCount][];
+        double[] sumReal = new double[fftSize];
+        double[] sumImaginary = new double[fftSize];
+        Complex[] sum = new Complex[fftSize];
+
+        int totalBlocks = (resultLength + blockSize - 1) / blockSize;
+        for (int blockIndex = 0; blockIndex < totalBlocks; blockIndex++) {
+            int outputStartIndex = blockIndex * blockSize;
+            for (int i = 0; i < inputCount; i++) {
+                Complex[] transform = SignalTransformer.transformBlock(paddedInputs[i], outputStartIndex, fftSize);
+                inputReal[i] = realParts(transform);
+                inputImaginary[i] = imaginaryParts(transform);
+            }
+
+            int validLength = Math.min(blockSize, resultLength - outputStartIndex);
+            for (int j = 0; j < outputCount; j++) {
+                Arrays.fill(sumReal, 0.0);
+                Arrays.fill(sumImaginary, 0.0);
+                for (int i = 0; i < inputCount; i++) {
+                    multiplyAccumulate(inputReal[i], inputImaginary[i], kernelReal[i][j], kernelImaginary[i][j],
+                            sumReal, sumImaginary);
+                }
+                for (int bin = 0; bin < fftSize; bin++) {
+                    sum[bin] = Complex.ofCartesian(sumReal[bin], sumImaginary[bin]);
+                }
+                double[] blockResult = SignalTransformer.ifft(sum);
+                System.arraycopy(blockResult, maxKernelLength - 1, outputs[j], outputStartIndex, validLength);
+            }
+        }
+        return outputs;
+    }
+
+    private static void multiplyAccumulate(double[] aReal, double[] aImaginary, double[] bReal, double[] bImaginary,
+                                           double[] sumReal, double[] sumImaginary) {
+        for (int bin = 0; bin < sumReal.length; bin++) {
+            sumReal[bin] += aReal[bin] * bReal[bin] - aImaginary[bin] * bImaginary[bin];
+            sumImaginary[bin] += aReal[bin] * bImaginary[bin] + aImaginary[bin] * bReal[bin];
+        }
+    }
+
+    private static double[] realParts(Complex[] values) {
+        double[] parts = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            parts[i] = values[i].getReal();
+        }
+        return parts;
+    }
+
+    private static double[] imaginaryParts(Complex[] values) {
+        double[] parts = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            parts[i] = values[i].getImaginary();
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,43 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+/**
+ * An engine and its block sizes as chosen by {@link ConvolutionPlanner}, with the predicted cost.
+ *
+ * @param tailBlockSize large partition size of a non-uniform plan, otherwise 0
+ * @param latencySamples input samples buffered before the first output sample, i.e. one block
+ * @param cpuLoad        predicted fraction of one core needed to run in real time, amortized kernel switches included
+ */
+public record ConvolutionPlan(Engine engine, int blockSize, int tailBlockSize, int latencySamples, double sampleRate,
+                              double cpuLoad) {
+    public ConvolutionPlan {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must be positive");
+        }
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sampleRate must be positive");
+        }
+    }
+
+    public double latencyMillis() {
+        return 1000.0 * latencySamples / sampleRate;
+    }
+
+    /**
+     * Builds the planned engine for {@code kernel}, which should be no longer than the kernel length planned for.
+     */
+    public BlockConvolver create(double[] kernel) {
+        return switch (engine) {
+            case DIRECT -> new DirectConvolver(kernel, blockSize);
+            case OVERLAP_SAVE -> new StreamingConvolver(kernel, blockSize);
+            case UNIFORM_PARTITIONED -> new PartitionedConvolver(kernel, blockSize);
+            case NON_UNIFORM_PARTITIONED -> new NonUniformPartitionedConvolver(kernel, blockSize, tailBlockSize);
+        };
+    }
+
+    public enum Engine {
+        DIRECT,
+        OVERLAP_SAVE,
+        UNIFORM_PARTITIONED,
+        NON_UNIFORM_PARTITIONED
+    }
+}
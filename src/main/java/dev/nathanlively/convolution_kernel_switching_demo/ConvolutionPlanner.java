@@ -0,0 +1,204 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Turns constraints such as "at most 5 ms of latency for a 2 s kernel at 48 kHz" into a {@link ConvolutionPlan}. Every
+ * engine is costed at every power-of-two block size that fits the latency budget, and the cheapest plan wins.
+ * <p>
+ * Costs come from a {@link CostModel}: {@link #calibrated()} times this host's FFT and multiply-add throughput, while
+ * {@link CostModel#nominal()} gives repeatable plans for tests.
+ */
+public class ConvolutionPlanner {
+    private static final int MIN_FFT_BLOCK_SIZE = 16;
+    // A complex multiply-add is four real multiply-adds
+    private static final int MULTIPLY_ADDS_PER_BIN = 4;
+
+    private final CostModel costModel;
+
+    public ConvolutionPlanner(CostModel costModel) {
+        this.costModel = costModel;
+    }
+
+    /**
+     * Planner whose cost model is measured on this machine, which takes a few tens of milliseconds.
+     */
+    public static ConvolutionPlanner calibrated() {
+        return new ConvolutionPlanner(CostModel.measure());
+    }
+
+    public CostModel costModel() {
+        return costModel;
+    }
+
+    public ConvolutionPlan plan(double maxLatencyMillis, double sampleRate, int kernelLength) {
+        return plan(maxLatencyMillis, sampleRate, kernelLength, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param switchIntervalSamples typical samples between kernel switches; each switch pays for transforming the new
+     *                              kernel, so frequent switching favors engines that are cheap to prepare
+     */
+    public ConvolutionPlan plan(double maxLatencyMillis, double sampleRate, int kernelLength,
+                                int switchIntervalSamples) {
+        return candidates(maxLatencyMillis, sampleRate, kernelLength, switchIntervalSamples).stream()
+                .min(Comparator.comparingDouble(ConvolutionPlan::cpuLoad))
+                .orElseThrow();
+    }
+
+    /**
+     * Every plan that meets the latency budget, for comparing the alternatives the planner rejected.
+     */
+    public List<ConvolutionPlan> candidates(double maxLatencyMillis, double sampleRate, int kernelLength,
+                                            int switchIntervalSamples) {
+        if (sampleRate <= 0 || kernelLength <= 0 || switchIntervalSamples <= 0) {
+            throw new IllegalArgumentException("sampleRate, kernelLength and switchIntervalSamples must be positive");
+        }
+        int maxBlockSize = (int) Math.min(Integer.MAX_VALUE / 4, Math.floor(maxLatencyMillis * sampleRate / 1000.0));
+        if (maxBlockSize < 1) {
+            throw new IllegalArgumentException("latency budget is shorter than one sample");
+        }
+        Rates rates = new Rates(sampleRate, switchIntervalSamples);
+        List<ConvolutionPlan> plans = new ArrayList<>();
+        int largestBlock = Integer.highestOneBit(maxBlockSize);
+        plans.add(direct(largestBlock, kernelLength, rates));
+        for (int blockSize = MIN_FFT_BLOCK_SIZE; blockSize <= largestBlock; blockSize *= 2) {
+            plans.add(overlapSave(blockSize, kernelLength, rates));
+            plans.add(uniformPartitioned(blockSize, kernelLength, rates));
+            for (int tailBlockSize = 2 * blockSize; tailBlockSize < kernelLength; tailBlockSize *= 2) {
+                plans.add(nonUniformPartitioned(blockSize, tailBlockSize, kernelLength, rates));
+            }
+        }
+        return plans;
+    }
+
+    private ConvolutionPlan direct(int blockSize, int kernelLength, Rates rates) {
+        double nanosPerSample = kernelLength * costModel.nanosPerMultiplyAdd();
+        return rates.plan(ConvolutionPlan.Engine.DIRECT, blockSize, 0, nanosPerSample, 0.0);
+    }
+
+    private ConvolutionPlan overlapSave(int blockSize, int kernelLength, Rates rates) {
+        int fftSize = StreamingConvolver.fftSizeFor(blockSize, kernelLength);
+        double nanosPerBlock = 2 * transformNanos(fftSize)
+                + fftSize * MULTIPLY_ADDS_PER_BIN * costModel.nanosPerMultiplyAdd();
+        return rates.plan(ConvolutionPlan.Engine.OVERLAP_SAVE, blockSize, 0, nanosPerBlock / blockSize,
+                transformNanos(fftSize));
+    }
+
+    private ConvolutionPlan uniformPartitioned(int blockSize, int kernelLength, Rates rates) {
+        int partitions = (kernelLength + blockSize - 1) / blockSize;
+        double nanosPerSample = partitionedNanosPerBlock(blockSize, partitions) / blockSize;
+        return rates.plan(ConvolutionPlan.Engine.UNIFORM_PARTITIONED, blockSize, 0, nanosPerSample,
+                partitions * transformNanos(2 * blockSize));
+    }
+
+    private ConvolutionPlan nonUniformPartitioned(int blockSize, int tailBlockSize, int kernelLength, Rates rates) {
+        int headPartitions = tailBlockSize / blockSize;
+        int tailLength = kernelLength - tailBlockSize;
+        int tailPartitions = (tailLength + tailBlockSize - 1) / tailBlockSize;
+        double nanosPerSample = partitionedNanosPerBlock(blockSize, headPartitions) / blockSize
+                + partitionedNanosPerBlock(tailBlockSize, tailPartitions) / tailBlockSize;
+        double switchNanos = headPartitions * transformNanos(2 * blockSize)
+                + tailPartitions * transformNanos(2 * tailBlockSize);
+        return rates.plan(ConvolutionPlan.Engine.NON_UNIFORM_PARTITIONED, blockSize, tailBlockSize, nanosPerSample,
+                switchNanos);
+    }
+
+    /**
+     * One forward and one inverse transform of {@code 2 * blockSize} points, plus a multiply-add over the lower half
+     * spectrum for each partition, as {@link PartitionedConvolver} does.
+     */
+    private double partitionedNanosPerBlock(int blockSize, int partitions) {
+        double binsPerPartition = blockSize + 1;
+        return 2 * transformNanos(2 * blockSize)
+                + partitions * binsPerPartition * MULTIPLY_ADDS_PER_BIN * costModel.nanosPerMultiplyAdd();
+    }
+
+    private double transformNanos(int fftSize) {
+        return fftSize * Integer.numberOfTrailingZeros(fftSize) * costModel.nanosPerButterfly();
+    }
+
+    private record Rates(double sampleRate, int switchIntervalSamples) {
+        ConvolutionPlan plan(ConvolutionPlan.Engine engine, int blockSize, int tailBlockSize, double nanosPerSample,
+                             double nanosPerSwitch) {
+            double amortizedSwitchNanos = switchIntervalSamples == Integer.MAX_VALUE
+                    ? 0.0
+                    : nanosPerSwitch / switchIntervalSamples;
+            double cpuLoad = (nanosPerSample + amortizedSwitchNanos) * sampleRate / 1e9;
+            return new ConvolutionPlan(engine, blockSize, tailBlockSize, blockSize, sampleRate, cpuLoad);
+        }
+    }
+
+    /**
+     * @param nanosPerButterfly   time per point per radix-2 stage of an FFT, i.e. an {@code F}-point transform takes
+     *                            {@code F log2 F} of these
+     * @param nanosPerMultiplyAdd time per real multiply-add in a tight loop
+     */
+    public record CostModel(double nanosPerButterfly, double nanosPerMultiplyAdd) {
+        private static final int CALIBRATION_FFT_SIZE = 4096;
+        private static final int CALIBRATION_TAPS = 4096;
+        private static final int CALIBRATION_ROUNDS = 7;
+
+        public CostModel {
+            if (!(nanosPerButterfly > 0) || !(nanosPerMultiplyAdd > 0)) {
+                throw new IllegalArgumentException("costs must be positive");
+            }
+        }
+
+        /**
+         * Round numbers in the right ratio for a JIT-compiled {@link SignalTransformer} on a current desktop CPU.
+         */
+        public static CostModel nominal() {
+            return new CostModel(2.0, 0.5);
+        }
+
+        /**
+         * Times {@link SignalTransformer#fft} and a dot product on this host, keeping the fastest of several rounds
+         * after a warm-up so that JIT compilation and stray pauses do not inflate the figures.
+         */
+        public static CostModel measure() {
+            double[] signal = new Random(0).doubles(CALIBRATION_FFT_SIZE, -1, 1).toArray();
+            double[] taps = new Random(1).doubles(CALIBRATION_TAPS, -1, 1).toArray();
+            double butterflies = (double) signal.length * Integer.numberOfTrailingZeros(signal.length);
+            int transformsPerRound = 20;
+            int dotProductsPerRound = 200;
+
+            double bestTransformNanos = Double.MAX_VALUE;
+            double bestDotProductNanos = Double.MAX_VALUE;
+            double sink = 0.0;
+            for (int round = 0; round < CALIBRATION_ROUNDS + 3; round++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < transformsPerRound; i++) {
+                    sink += SignalTransformer.fft(signal)[i].getReal();
+                }
+                long transformNanos = System.nanoTime() - start;
+                start = System.nanoTime();
+                for (int i = 0; i < dotProductsPerRound; i++) {
+                    sink += dotProduct(signal, taps, i);
+                }
+                long dotProductNanos = System.nanoTime() - start;
+                // The first rounds are warm-up
+                if (round >= 3) {
+                    bestTransformNanos = Math.min(bestTransformNanos, (double) transformNanos / transformsPerRound);
+                    bestDotProductNanos = Math.min(bestDotProductNanos, (double) dotProductNanos / dotProductsPerRound);
+                }
+            }
+            if (Double.isNaN(sink)) {
+                throw new IllegalStateException("calibration produced NaN");
+            }
+            return new CostModel(Math.max(bestTransformNanos / butterflies, 1e-3),
+                    Math.max(bestDotProductNanos / taps.length, 1e-3));
+        }
+
+        private static double dotProduct(double[] signal, double[] taps, int offset) {
+            double sum = 0.0;
+            for (int k = 0; k < taps.length; k++) {
+                sum += taps[k] * signal[(offset + k) & (signal.length - 1)];
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Flow.Processor} over a {@link StreamingConvolver}: every upstream block of {@code blockSize} samples becomes
+ * one convolved block downstream, so downstream demand is passed upstream one for one and nothing queues beyond what
+ * was requested. When upstream completes, the kernel tail is emitted as extra blocks (the last one shortened), so the
+ * concatenated output equals {@link OverlapSaveAdapter#with(double[], double[])} of the concatenated input.
+ * <p>
+ * {@link #switchKernel(double[])} is the side channel for kernel changes; a switch takes effect at the next block.
+ * Only one downstream subscriber is supported.
+ */
+public class ConvolutionProcessor implements Flow.Processor<double[], double[]> {
+    private final StreamingConvolver convolver;
+    private final int blockSize;
+    private final Queue<double[]> ready = new ConcurrentLinkedQueue<>();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger drainers = new AtomicInteger();
+
+    private Flow.@Nullable Subscription upstream;
+    private Flow.@Nullable Subscriber<? super double[]> downstream;
+    private long unforwardedDemand;
+    private volatile boolean upstreamDone;
+    private volatile @Nullable Throwable error;
+    private volatile boolean cancelled;
+    private boolean terminated;
+
+    public ConvolutionProcessor(double[] kernel, int blockSize) {
+        this.convolver = new StreamingConvolver(kernel, blockSize);
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Replaces the kernel from the next block on. The kernel is transformed on the calling thread; it may not be
+     * longer than the initial kernel.
+     */
+    public void switchKernel(double[] kernel) {
+        convolver.activate(PreparedKernel.of(kernel, convolver.fftSize()));
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super double[]> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber cannot be null");
+        synchronized (this) {
+            if (downstream != null) {
+                subscriber.onSubscribe(new NoOpSubscription());
+                subscriber.onError(new IllegalStateException("only one subscriber is supported"));
+                return;
+            }
+            downstream = subscriber;
+        }
+        subscriber.onSubscribe(new DownstreamSubscription());
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        long demand;
+        synchronized (this) {
+            if (upstream != null) {
+                subscription.cancel();
+                return;
+            }
+            upstream = subscription;
+            demand = unforwardedDemand;
+            unforwardedDemand = 0;
+        }
+        if (cancelled) {
+            subscription.cancel();
+        } else if (demand > 0) {
+            subscription.request(demand);
+        }
+    }
+
+    @Override
+    public void onNext(double[] block) {
+        if (upstreamDone) {
+            return;
+        }
+        if (block.length != blockSize) {
+            cancelUpstream();
+            onError(new IllegalArgumentException("block length must equal blockSize"));
+            return;
+        }
+        ready.add(convolver.process(block));
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        error = throwable;
+        upstreamDone = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        // Flush the last kernelLength - 1 output samples still held in the convolver's history
+        int tailSamples = convolver.kernelLength() - 1;
+        double[] silence = new double[blockSize];
+        while (tailSamples > 0) {
+            double[] block = convolver.process(silence);
+            ready.add(tailSamples >= blockSize ? block : Arrays.copyOf(block, tailSamples));
+            tailSamples -= blockSize;
+        }
+        upstreamDone = true;
+        drain();
+    }
+
+    private void drain() {
+        if (drainers.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            Flow.Subscriber<? super double[]> subscriber;
+            synchronized (this) {
+                subscriber = downstream;
+            }
+            if (subscriber != null && !terminated) {
+                emitReady(subscriber);
+            }
+            missed = drainers.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void emitReady(Flow.Subscriber<? super double[]> subscriber) {
+        if (cancelled) {
+            ready.clear();
+            return;
+        }
+        Throwable failure = error;
+        if (failure != null) {
+            terminated = true;
+            ready.clear();
+            subscriber.onError(failure);
+            return;
+        }
+        while (requested.get() > 0 && !ready.isEmpty()) {
+            double[] block = ready.poll();
+            if (block == null) {
+                break;
+            }
+            requested.decrementAndGet();
+            subscriber.onNext(block);
+        }
+        if (upstreamDone && ready.isEmpty()) {
+            terminated = true;
+            subscriber.onComplete();
+        }
+    }
+
+    private void cancelUpstream() {
+        Flow.Subscription subscription;
+        synchronized (this) {
+            subscription = upstream;
+        }
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    private final class DownstreamSubscription implements Flow.Subscription {
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancelUpstream();
+                onError(new IllegalArgumentException("request must be positive"));
+                return;
+            }
+            requested.accumulateAndGet(n, ConvolutionProcessor::addCapped);
+            Flow.Subscription subscription;
+            synchronized (ConvolutionProcessor.this) {
+                subscription = upstream;
+                if (subscription == null) {
+                    unforwardedDemand = addCapped(unforwardedDemand, n);
+                }
+            }
+            // One input block makes one output block, so upstream demand mirrors downstream demand
+            if (subscription != null && !upstreamDone) {
+                subscription.request(n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            cancelUpstream();
+            drain();
+        }
+    }
+
+    private static final class NoOpSubscription implements Flow.Subscription {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    }
+
+    private static long addCapped(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+}
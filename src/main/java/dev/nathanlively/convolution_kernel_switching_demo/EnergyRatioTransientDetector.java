@@ -0,0 +1,163 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import java.util.Arrays;
+
+/**
+ * Energy-ratio transient detector from the research notes: score = 2 * during / (before + after), where each term is
+ * the mean energy of a window around the candidate sample. The three windows sit back to back in one circular buffer
+ * of squared samples and their sums are updated as samples move between them, so each sample costs O(1).
+ * <p>
+ * A sample only enters the "during" window once the "after" window behind it has filled, so the detector lags the
+ * input by {@link #latencySamples()} (128 samples, about 2.9 ms at 44.1 kHz, with the defaults).
+ */
+public class EnergyRatioTransientDetector {
+    private static final int DEFAULT_BEFORE_SAMPLES = 128;
+    private static final int DEFAULT_DURING_SAMPLES = 16;
+    private static final int DEFAULT_AFTER_SAMPLES = 128;
+    private static final double DEFAULT_THRESHOLD = 4.0;
+    // Keeps silence from producing 0 / 0 while leaving any audible energy burst with a large score
+    private static final double ENERGY_FLOOR = 1e-12;
+
+    private final int beforeSamples;
+    private final int duringSamples;
+    private final int afterSamples;
+    private final double threshold;
+    private final double[] energies;
+
+    private int writePosition;
+    private long samplesSeen;
+    private double beforeSum;
+    private double duringSum;
+    private double afterSum;
+    private double latestScore;
+    private boolean aboveThreshold;
+    private long[] detections = new long[16];
+    private int detectionCount;
+
+    public EnergyRatioTransientDetector() {
+        this(DEFAULT_BEFORE_SAMPLES, DEFAULT_DURING_SAMPLES, DEFAULT_AFTER_SAMPLES, DEFAULT_THRESHOLD);
+    }
+
+    public EnergyRatioTransientDetector(int beforeSamples, int duringSamples, int afterSamples, double threshold) {
+        if (beforeSamples <= 0 || duringSamples <= 0 || afterSamples <= 0) {
+            throw new IllegalArgumentException("window lengths must be positive");
+        }
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("threshold must be positive");
+        }
+        this.beforeSamples = beforeSamples;
+        this.duringSamples = duringSamples;
+        this.afterSamples = afterSamples;
+        this.threshold = threshold;
+        this.energies = new double[beforeSamples + duringSamples + afterSamples];
+    }
+
+    /**
+     * @return {@code true} when this sample pushed the score over the threshold
+     */
+    public boolean push(double sample) {
+        int length = energies.length;
+        // Oldest sample in each window, i.e. the one about to move into the previous window or out of the buffer
+        int leavingBefore = writePosition;
+        int leavingDuring = (writePosition + beforeSamples) % length;
+        int leavingAfter = (writePosition + beforeSamples + duringSamples) % length;
+
+        beforeSum += energies[leavingDuring] - energies[leavingBefore];
+        duringSum += energies[leavingAfter] - energies[leavingDuring];
+        double energy = sample * sample;
+        afterSum += energy - energies[leavingAfter];
+        energies[writePosition] = energy;
+        writePosition = (writePosition + 1) % length;
+        samplesSeen++;
+
+        if (writePosition == 0) {
+            resynchronizeSums();
+        }
+        if (samplesSeen < length) {
+            return false;
+        }
+
+        double before = beforeSum / beforeSamples;
+        double during = duringSum / duringSamples;
+        double after = afterSum / afterSamples;
+        latestScore = 2.0 * during / (before + after + ENERGY_FLOOR);
+
+        boolean wasAboveThreshold = aboveThreshold;
+        aboveThreshold = latestScore > threshold;
+        if (aboveThreshold && !wasAboveThreshold) {
+            recordDetection(samplesSeen - afterSamples - duringSamples);
+            return true;
+        }
+        return false;
+    }
+
+    public void push(double[] samples, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            push(samples[i]);
+        }
+    }
+
+    /**
+     * Delay between a sample arriving and the first score that treats it as part of the "during" window.
+     */
+    public int latencySamples() {
+        return afterSamples;
+    }
+
+    public long samplesSeen() {
+        return samplesSeen;
+    }
+
+    public double latestScore() {
+        return latestScore;
+    }
+
+    public boolean isTransient() {
+        return aboveThreshold;
+    }
+
+    public int detectionCount() {
+        return detectionCount;
+    }
+
+    /**
+     * Start of the "during" window, counted from the first pushed sample, for each threshold crossing.
+     */
+    public long[] detections() {
+        return Arrays.copyOf(detections, detectionCount);
+    }
+
+    public void reset() {
+        Arrays.fill(energies, 0.0);
+        writePosition = 0;
+        samplesSeen = 0;
+        beforeSum = 0.0;
+        duringSum = 0.0;
+        afterSum = 0.0;
+        latestScore = 0.0;
+        aboveThreshold = false;
+        detectionCount = 0;
+    }
+
+    private void resynchronizeSums() {
+        // Running sums drift with rounding, so rebuild them once per trip around the buffer (amortized O(1))
+        beforeSum = sum(0, beforeSamples);
+        duringSum = sum(beforeSamples, beforeSamples + duringSamples);
+        afterSum = sum(beforeSamples + duringSamples, energies.length);
+    }
+
+    private double sum(int from, int to) {
+        double total = 0.0;
+        for (int i = from; i < to; i++) {
+            total += energies[i];
+        }
+        return total;
+    }
+
+    private void recordDetection(long sampleIndex) {
+        if (detectionCount == detections.length) {
+            detections = Arrays.copyOf(detections, detectionCount * 2);
+        }
+        detections[detectionCount++] = sampleIndex;
+    }
+}
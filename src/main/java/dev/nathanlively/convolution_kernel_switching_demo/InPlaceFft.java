@@ -0,0 +1,84 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+/**
+ * Radix-2 FFT over caller-owned real/imaginary arrays. Twiddles and the bit-reversal order are computed once, so
+ * transforms allocate nothing. The forward transform uses the same sign and scaling as
+ * {@link SignalTransformer#fft(double[])}; the inverse divides by the size.
+ */
+final class InPlaceFft {
+    private final int size;
+    private final int[] bitReversed;
+    private final double[] cosTable;
+    private final double[] sinTable;
+
+    InPlaceFft(int size) {
+        if (size < 1 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("FFT size must be a power of two");
+        }
+        this.size = size;
+        this.bitReversed = new int[size];
+        int bits = Integer.numberOfTrailingZeros(size);
+        for (int i = 0; i < size; i++) {
+            bitReversed[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (Integer.SIZE - bits);
+        }
+        this.cosTable = new double[size / 2];
+        this.sinTable = new double[size / 2];
+        for (int i = 0; i < size / 2; i++) {
+            cosTable[i] = Math.cos(2.0 * Math.PI * i / size);
+            sinTable[i] = Math.sin(2.0 * Math.PI * i / size);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forward(double[] real, double[] imag) {
+        transform(real, imag, -1.0);
+    }
+
+    void inverse(double[] real, double[] imag) {
+        transform(real, imag, 1.0);
+        double scale = 1.0 / size;
+        for (int i = 0; i < size; i++) {
+            real[i] *= scale;
+            imag[i] *= scale;
+        }
+    }
+
+    private void transform(double[] real, double[] imag, double sign) {
+        if (real.length != size || imag.length != size) {
+            throw new IllegalArgumentException("arrays must match the FFT size");
+        }
+        for (int i = 0; i < size; i++) {
+            int j = bitReversed[i];
+            if (i < j) {
+                double tempReal = real[i];
+                real[i] = real[j];
+                real[j] = tempReal;
+                double tempImag = imag[i];
+                imag[i] = imag[j];
+                imag[j] = tempImag;
+            }
+        }
+
+        for (int length = 2; length <= size; length <<= 1) {
+            int half = length >> 1;
+            int tableStep = size / length;
+            for (int start = 0; start < size; start += length) {
+                for (int k = 0; k < half; k++) {
+                    double wReal = cosTable[k * tableStep];
+                    double wImag = sign * sinTable[k * tableStep];
+                    int even = start + k;
+                    int odd = even + half;
+                    double oddReal = real[odd] * wReal - imag[odd] * wImag;
+                    double oddImag = real[odd] * wImag + imag[odd] * wReal;
+                    real[odd] = real[even] - oddReal;
+                    imag[odd] = imag[even] - oddImag;
+                    real[even] += oddReal;
+                    imag[even] += oddImag;
+                }
+            }
+        }
+    }
+}
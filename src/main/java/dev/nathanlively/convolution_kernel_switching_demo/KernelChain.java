@@ -0,0 +1,130 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.apache.arrow.memory.util.CommonUtil;
+import org.apache.commons.numbers.complex.Complex;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Kernels applied in series (e.g. correction EQ, then room IR, then speaker EQ) or summed in parallel, fused ahead of
+ * time into a single kernel. Convolution is associative and distributes over addition, so a series is the product of
+ * the stage spectra and a parallel sum is their sum, and the chain then costs one convolution at runtime instead of
+ * one per stage.
+ * <p>
+ * Chains are immutable. The fused kernel and each {@link PreparedKernel} are computed once per chain and shared, so
+ * switching between chains never re-fuses or re-transforms them.
+ */
+public final class KernelChain {
+    private final Kind kind;
+    private final double @Nullable [] taps;
+    private final List<KernelChain> parts;
+    private final int length;
+    private final Map<Integer, PreparedKernel> prepared = new ConcurrentHashMap<>();
+    private volatile double @Nullable [] fusedKernel;
+
+    private KernelChain(Kind kind, double @Nullable [] taps, List<KernelChain> parts, int length) {
+        this.kind = kind;
+        this.taps = taps;
+        this.parts = parts;
+        this.length = length;
+    }
+
+    public static KernelChain of(double[] kernel) {
+        if (kernel.length == 0) {
+            throw new IllegalArgumentException("kernel cannot be empty");
+        }
+        return new KernelChain(Kind.KERNEL, kernel.clone(), List.of(), kernel.length);
+    }
+
+    /**
+     * Applies {@code stages} one after another.
+     */
+    public static KernelChain series(KernelChain... stages) {
+        List<KernelChain> parts = List.of(stages);
+        if (parts.isEmpty()) {
+            throw new IllegalArgumentException("a chain needs at least one stage");
+        }
+        int length = parts.stream().mapToInt(KernelChain::length).sum() - (parts.size() - 1);
+        return parts.size() == 1 ? parts.getFirst() : new KernelChain(Kind.SERIES, null, parts, length);
+    }
+
+    /**
+     * Sums the outputs of {@code branches}, each fed the same input.
+     */
+    public static KernelChain parallel(KernelChain... branches) {
+        List<KernelChain> parts = List.of(branches);
+        if (parts.isEmpty()) {
+            throw new IllegalArgumentException("a chain needs at least one stage");
+        }
+        int length = parts.stream().mapToInt(KernelChain::length).max().orElseThrow();
+        return parts.size() == 1 ? parts.getFirst() : new KernelChain(Kind.PARALLEL, null, parts, length);
+    }
+
+    public KernelChain then(double[] kernel) {
+        return series(this, of(kernel));
+    }
+
+    public KernelChain then(KernelChain next) {
+        return series(this, next);
+    }
+
+    public KernelChain plus(KernelChain branch) {
+        return parallel(this, branch);
+    }
+
+    /**
+     * Length of the fused kernel.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * The whole chain as one time-domain kernel, for {@link Convolution#with(double[], double[])}.
+     */
+    public double[] toKernel() {
+        double[] kernel = fusedKernel;
+        if (kernel == null) {
+            double[] impulseResponse = SignalTransformer.ifft(spectrum(CommonUtil.nextPowerOfTwo(length)));
+            kernel = Arrays.copyOf(impulseResponse, length);
+            fusedKernel = kernel;
+        }
+        return kernel.clone();
+    }
+
+    /**
+     * The fused spectrum at {@code fftSize}, computed from the stage spectra without an inverse transform. Cached per
+     * size, so every convolver and every switch to this chain shares one instance.
+     */
+    public PreparedKernel prepare(int fftSize) {
+        if (fftSize < length || Integer.bitCount(fftSize) != 1) {
+            throw new IllegalArgumentException("fftSize must be a power of two no smaller than the chain length");
+        }
+        return prepared.computeIfAbsent(fftSize, size -> new PreparedKernel(length, size, spectrum(size)));
+    }
+
+    private Complex[] spectrum(int fftSize) {
+        double[] kernel = taps;
+        if (kernel != null) {
+            return SignalTransformer.fft(SignalTransformer.pad(kernel, fftSize));
+        }
+        Complex[] result = parts.getFirst().spectrum(fftSize);
+        for (KernelChain part : parts.subList(1, parts.size())) {
+            Complex[] next = part.spectrum(fftSize);
+            for (int bin = 0; bin < fftSize; bin++) {
+                result[bin] = kind == Kind.SERIES ? result[bin].multiply(next[bin]) : result[bin].add(next[bin]);
+            }
+        }
+        return result;
+    }
+
+    private enum Kind {
+        KERNEL,
+        SERIES,
+        PARALLEL
+    }
+}
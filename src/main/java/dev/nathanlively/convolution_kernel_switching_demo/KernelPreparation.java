@@ -0,0 +1,51 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Handle to a kernel being transformed on a background thread. {@link #poll()} never blocks, so the
+ * processing thread can check for a finished kernel once per block and activate it without waiting.
+ */
+public final class KernelPreparation {
+    private final Future<PreparedKernel> future;
+
+    KernelPreparation(Future<PreparedKernel> future) {
+        this.future = future;
+    }
+
+    public boolean isReady() {
+        return future.isDone() && !future.isCancelled();
+    }
+
+    public boolean isCancelled() {
+        return future.isCancelled();
+    }
+
+    public boolean cancel() {
+        return future.cancel(true);
+    }
+
+    public @Nullable PreparedKernel poll() {
+        if (!isReady()) {
+            return null;
+        }
+        return await();
+    }
+
+    public PreparedKernel await() {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for kernel preparation", e);
+        } catch (CancellationException e) {
+            throw new IllegalStateException("kernel preparation was cancelled", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("kernel preparation failed", e.getCause());
+        }
+    }
+}
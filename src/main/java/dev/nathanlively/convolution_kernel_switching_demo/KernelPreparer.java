@@ -0,0 +1,45 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+public class KernelPreparer implements AutoCloseable {
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+
+    public KernelPreparer() {
+        this(Executors.newSingleThreadExecutor(KernelPreparer::newDaemonThread), true);
+    }
+
+    public KernelPreparer(ExecutorService executor) {
+        this(executor, false);
+    }
+
+    private KernelPreparer(ExecutorService executor, boolean ownsExecutor) {
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    public KernelPreparation prepare(double[] kernel, int fftSize) {
+        PreparedKernel.validate(kernel, fftSize);
+        // Snapshot so the caller can keep editing its array while the transform runs
+        double[] snapshot = kernel.clone();
+        FutureTask<PreparedKernel> task = new FutureTask<>(() -> PreparedKernel.of(snapshot, fftSize));
+        executor.execute(task);
+        return new KernelPreparation(task);
+    }
+
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Thread newDaemonThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "kernel-preparer");
+        thread.setDaemon(true);
+        return thread;
+    }
+}
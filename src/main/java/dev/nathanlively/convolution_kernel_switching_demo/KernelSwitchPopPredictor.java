@@ -1,7 +1,6 @@
 package dev.nathanlively.convolution_kernel_switching_demo;
 
-import org.apache.arrow.memory.util.CommonUtil;
-import org.apache.commons.numbers.complex.Complex;
+import java.util.Arrays;
 
 public class KernelSwitchPopPredictor {
     private final MaskingFactorCalculator maskingCalc = new MaskingFactorCalculator();
@@ -16,57 +15,138 @@ public class KernelSwitchPopPredictor {
             0.035, 0.035, 0.037, 0.043, 0.042, 0.048, 0.047, 0.056,
             0.060, 0.066, 0.071, 0.076, 0.066, 0.051, 0.058, 0.064
     };
-    private final int sampleRate;
+    // Bounds of maskingFactor for a normalized flux in [0, 1]; flat spectra get 3.0, which lies in between
+    static final double MIN_MASKING_FACTOR = 1.0;
+    static final double MAX_MASKING_FACTOR = 5.0;
+    private static final int ANALYSIS_WINDOW_SIZE = 512;
+    private final PerceptualModel model;
+    private final ThreadLocal<SpectralFeatureExtractor> analysisFeatures;
 
     public KernelSwitchPopPredictor(int sampleRate) {
-        this.sampleRate = sampleRate;
+        this.model = PerceptualModel.of(sampleRate, ANALYSIS_WINDOW_SIZE);
+        this.analysisFeatures = ThreadLocal.withInitial(() -> new SpectralFeatureExtractor(model.window()));
+    }
+
+    PerceptualModel model() {
+        return model;
     }
 
     public PerceptualImpact predictAudibility(double[] signal, double[] currentKernel,
                                               double[] candidateKernel, int switchIndex) {
-        // 1. Calculate the actual discontinuity at switch point
-        double currentOutput = convolve(signal, currentKernel, switchIndex);
-        double candidateOutput = convolve(signal, candidateKernel, switchIndex);
-        double rawDiscontinuity = Math.abs(candidateOutput - currentOutput);
-
-        // 2. Extract larger context for spectral flux calculation
+        // 1. Extract larger context for spectral flux calculation
         int fluxContextSize = 2048;  // Enough for ~12 flux frames
         double[] fluxContext = extractSegment(signal, switchIndex, fluxContextSize);
 
-        // 3. Calculate spectral flux on the larger context
+        // 2. Calculate spectral flux on the larger context
         SpectralFluxCalculator fluxCalc = new SpectralFluxCalculator();
         double spectralFlux = fluxCalc.normalizedAverageFlux(fluxContext);
 
-        // 4. For frequency analysis, use smaller window centered on switch
-        int analysisWindowSize = 512;
-        double[] analysisSegment = extractSegment(signal, switchIndex, analysisWindowSize);
-
-        // Apply windowing for FFT
-        double[] hannWindow = SignalTransformer.createHannWindow(analysisWindowSize);
-        double[] windowedSegment = new double[analysisWindowSize];
-        for (int i = 0; i < analysisWindowSize; i++) {
-            windowedSegment[i] = analysisSegment[i] * hannWindow[i];
-        }
+        return predictAudibility(signal, currentKernel, candidateKernel, switchIndex, spectralFlux);
+    }
 
-        // 5. Get magnitude spectrum and power spectrum from windowed segment
-        double[] magnitude = fft(windowedSegment);
-        double[] powerSpectrum = SignalTransformer.powerSpectrum(windowedSegment);
+    /**
+     * Variant for callers that already track spectral flux, e.g. with a {@link StreamingSpectralFlux} fed by the
+     * live signal, so the 2048-sample flux context does not have to be re-analyzed.
+     */
+    public PerceptualImpact predictAudibility(double[] signal, double[] currentKernel, double[] candidateKernel,
+                                              int switchIndex, double spectralFlux) {
+        // 1. Calculate the actual discontinuity at switch point
+        double rawDiscontinuity = rawDiscontinuity(signal, currentKernel, candidateKernel, switchIndex);
 
-        // 6. Find dominant frequency to select threshold
-        int dominantBin = findPeakBin(magnitude);
-        double dominantFreq = binToFrequency(dominantBin, sampleRate, analysisWindowSize);
+        // 2. Window and transform a smaller segment centered on the switch, extracting all features in one pass
+        SpectralFeatureExtractor features = analysisFeatures.get();
+        features.reset();
+        features.analyzeFrame(signal, switchIndex);
 
-        // 7. Get frequency-specific threshold
-        double threshold = getThresholdForFrequency(dominantFreq);
+        // 3. Look up the threshold for the dominant frequency bin
+        double threshold = model.thresholdForBin(features.peakBin());
 
-        // 8. Apply masking adjustment using both power spectrum and flux
-        double maskingFactor = calculateMaskingFactorWithFlux(powerSpectrum, spectralFlux);
+        // 4. Apply masking adjustment using both spectral flatness and flux
+        double maskingFactor = maskingFactor(features.flatness(), spectralFlux);
         double effectiveThreshold = threshold * maskingFactor;
 
-        // 9. Return perceptual impact
+        // 5. Return perceptual impact
         return new PerceptualImpact(rawDiscontinuity / effectiveThreshold);
     }
 
+    /**
+     * Scores many switch points against one shared {@link SpectralFeatureTrack}. Each index is analyzed with the
+     * STFT frame nearest to it (within half a hop), so only the discontinuity itself is computed per index.
+     */
+    public PerceptualImpact[] predictAudibility(double[] signal, double[] currentKernel,
+                                                double[] candidateKernel, int[] switchIndices) {
+        if (switchIndices.length == 0) {
+            return new PerceptualImpact[0];
+        }
+        int firstIndex = Arrays.stream(switchIndices).min().orElseThrow();
+        int lastIndex = Arrays.stream(switchIndices).max().orElseThrow();
+        SpectralFeatureTrack track = SpectralFeatureTrack.analyze(signal, firstIndex, lastIndex, model);
+
+        PerceptualImpact[] impacts = new PerceptualImpact[switchIndices.length];
+        for (int i = 0; i < switchIndices.length; i++) {
+            impacts[i] = predictAudibility(signal, currentKernel, candidateKernel, switchIndices[i], track);
+        }
+        return impacts;
+    }
+
+    /**
+     * Finds the least audible switch index in {@code [targetIndex, targetIndex + toleranceSamples]}. The spectral
+     * features are computed once for the window and the effective threshold is reused for every sample that shares
+     * an STFT frame, so only the discontinuity is evaluated per sample.
+     */
+    public SwitchPoint findQuietestSwitchPoint(double[] signal, double[] currentKernel, double[] candidateKernel,
+                                               int targetIndex, int toleranceSamples) {
+        if (targetIndex < 0 || targetIndex >= signal.length) {
+            throw new IllegalArgumentException("targetIndex must be within the signal");
+        }
+        if (toleranceSamples < 0) {
+            throw new IllegalArgumentException("toleranceSamples cannot be negative");
+        }
+        int lastIndex = (int) Math.min((long) targetIndex + toleranceSamples, signal.length - 1L);
+        SpectralFeatureTrack track = SpectralFeatureTrack.analyze(signal, targetIndex, lastIndex, model);
+
+        int bestIndex = targetIndex;
+        double bestRatio = Double.POSITIVE_INFINITY;
+        int cachedFrame = Integer.MIN_VALUE;
+        double effectiveThreshold = 0.0;
+        for (int index = targetIndex; index <= lastIndex; index++) {
+            int frame = SpectralFeatureTrack.nearestFrame(index);
+            if (frame != cachedFrame) {
+                effectiveThreshold = effectiveThreshold(track, index);
+                cachedFrame = frame;
+            }
+            double ratio = rawDiscontinuity(signal, currentKernel, candidateKernel, index) / effectiveThreshold;
+            if (ratio < bestRatio) {
+                bestRatio = ratio;
+                bestIndex = index;
+            }
+        }
+        return new SwitchPoint(bestIndex, new PerceptualImpact(bestRatio));
+    }
+
+    /**
+     * Maps the predicted impact of switching from {@code currentKernel} to {@code candidateKernel} at every hop of
+     * the signal. Segments are analyzed in parallel.
+     */
+    public SwitchSafetyMap mapSwitchSafety(double[] signal, double[] currentKernel, double[] candidateKernel) {
+        return SwitchSafetyMap.analyze(this, signal, currentKernel, candidateKernel);
+    }
+
+    PerceptualImpact predictAudibility(double[] signal, double[] currentKernel, double[] candidateKernel,
+                                       int switchIndex, SpectralFeatureTrack track) {
+        double rawDiscontinuity = rawDiscontinuity(signal, currentKernel, candidateKernel, switchIndex);
+        return new PerceptualImpact(rawDiscontinuity / effectiveThreshold(track, switchIndex));
+    }
+
+    double rawDiscontinuity(double[] signal, double[] currentKernel, double[] candidateKernel, int switchIndex) {
+        return Math.abs(convolve(signal, candidateKernel, switchIndex) - convolve(signal, currentKernel, switchIndex));
+    }
+
+    double effectiveThreshold(SpectralFeatureTrack track, int switchIndex) {
+        double threshold = model.thresholdForBin(track.peakBin(switchIndex));
+        return threshold * maskingFactor(track.flatness(switchIndex), track.normalizedAverageFlux(switchIndex));
+    }
+
     // Rename for clarity - this doesn't window, just extracts
     private double[] extractSegment(double[] signal, int centerIndex, int segmentSize) {
         double[] segment = new double[segmentSize];
@@ -83,8 +163,11 @@ public class KernelSwitchPopPredictor {
 
     double calculateMaskingFactorWithFlux(double[] spectrum, double normalizedAverageSpectralFlux) {
         // We really only need spectral flatness for noise because 512 samples is not long enough to give high spectral flux.
-        SpectralFlatnessCalculator flatnessCalc = new SpectralFlatnessCalculator();
-        double spectralFlatness = flatnessCalc.calculateFlatness(spectrum);
+        SpectralFeatureExtractor features = analysisFeatures.get();
+        return maskingFactor(features.summarize(spectrum).flatness(), normalizedAverageSpectralFlux);
+    }
+
+    private static double maskingFactor(double spectralFlatness, double normalizedAverageSpectralFlux) {
         if (spectralFlatness > 0.3) {
             return 3.0; // White noise
         }
@@ -113,50 +196,7 @@ public class KernelSwitchPopPredictor {
         return result;
     }
 
-    private double[] fft(double[] signal) {
-        // Assume signal is already windowed if needed
-        double[] paddedSignal = SignalTransformer.pad(signal, CommonUtil.nextPowerOfTwo(signal.length));
-        Complex[] transform = SignalTransformer.fft(paddedSignal);
-
-        double[] magnitudes = new double[transform.length / 2];
-        for (int i = 0; i < magnitudes.length; i++) {
-            magnitudes[i] = transform[i].abs();
-        }
-        return magnitudes;
-    }
-
-    private int findPeakBin(double[] spectrum) {
-        int peakBin = 0;
-        double maxMagnitude = spectrum[0];
-
-        for (int i = 1; i < spectrum.length; i++) {
-            if (spectrum[i] > maxMagnitude) {
-                maxMagnitude = spectrum[i];
-                peakBin = i;
-            }
-        }
-        return peakBin;
-    }
-
-    private double binToFrequency(int bin, int sampleRate, int fftSize) {
-        return (double) bin * sampleRate / fftSize;
-    }
-
     double getThresholdForFrequency(double frequency) {
-        // Find the appropriate threshold using linear interpolation
-        for (int i = 0; i < BARK_CENTER_FREQUENCIES.length - 1; i++) {
-            if (frequency <= BARK_CENTER_FREQUENCIES[i + 1]) {
-                double f1 = BARK_CENTER_FREQUENCIES[i];
-                double f2 = BARK_CENTER_FREQUENCIES[i + 1];
-                double t1 = BARK_DISCONTINUITY_THRESHOLDS[i];
-                double t2 = BARK_DISCONTINUITY_THRESHOLDS[i + 1];
-
-                // Linear interpolation
-                double ratio = (frequency - f1) / (f2 - f1);
-                return t1 + ratio * (t2 - t1);
-            }
-        }
-        // Above highest frequency
-        return BARK_DISCONTINUITY_THRESHOLDS[BARK_DISCONTINUITY_THRESHOLDS.length - 1];
+        return PerceptualModel.thresholdForFrequency(frequency);
     }
 }
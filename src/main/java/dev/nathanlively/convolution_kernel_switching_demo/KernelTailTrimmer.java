@@ -0,0 +1,159 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import java.util.Arrays;
+
+/**
+ * Shortens measured impulse responses before they are transformed. Room IRs usually end in a stretch of measurement
+ * noise that only costs FFT work, so when the kernel ends in a noise floor the trimmer finds where the decay sinks
+ * into it and cuts on the noise-compensated Schroeder energy decay curve; otherwise it cuts on the raw decay curve.
+ * Either way the energy removed never exceeds {@code thresholdDb} relative to the whole kernel.
+ */
+public class KernelTailTrimmer {
+    public static final double DEFAULT_THRESHOLD_DB = -60.0;
+    private static final int ENVELOPE_WINDOW = 256;
+    // The last tenth of the IR is taken as noise, the level Lundeby's method starts from
+    private static final double NOISE_ESTIMATE_FRACTION = 0.1;
+    private static final double NOISE_MARGIN_DB = 5.0;
+    // The tail only counts as a floor if it is this far below the loudest window and this flat
+    private static final double NOISE_DETECTION_DB = 20.0;
+    private static final double NOISE_FLATNESS_DB = 3.0;
+
+    private final double thresholdDb;
+
+    public KernelTailTrimmer() {
+        this(DEFAULT_THRESHOLD_DB);
+    }
+
+    /**
+     * @param thresholdDb remaining decay energy, relative to the total, below which the tail is dropped
+     */
+    public KernelTailTrimmer(double thresholdDb) {
+        if (!(thresholdDb < 0.0)) {
+            throw new IllegalArgumentException("thresholdDb must be negative");
+        }
+        this.thresholdDb = thresholdDb;
+    }
+
+    public TrimResult trim(double[] kernel) {
+        if (kernel.length == 0) {
+            throw new IllegalArgumentException("kernel cannot be empty");
+        }
+        double[] energy = new double[kernel.length];
+        double totalEnergy = 0.0;
+        double peakEnergy = 0.0;
+        for (int n = 0; n < kernel.length; n++) {
+            energy[n] = kernel[n] * kernel[n];
+            totalEnergy += energy[n];
+            peakEnergy = Math.max(peakEnergy, energy[n]);
+        }
+        if (totalEnergy == 0.0) {
+            return new TrimResult(new double[]{0.0}, kernel.length, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
+        }
+
+        double noise = noiseFloor(energy);
+        int decayEnd = noise > 0.0 ? noiseOnset(energy, noise) : energy.length;
+        int length = schroederCut(energy, noise, decayEnd);
+        if (decibels(tailEnergy(energy, length) / totalEnergy) > thresholdDb) {
+            // Subtracting the noise let the cut reach into audible decay, so cut on the raw energy instead
+            length = schroederCut(energy, 0.0, energy.length);
+        }
+        double errorDb = decibels(tailEnergy(energy, length) / totalEnergy);
+        if (errorDb > thresholdDb) {
+            length = kernel.length;
+            errorDb = Double.NEGATIVE_INFINITY;
+        }
+        return new TrimResult(Arrays.copyOf(kernel, length), kernel.length, decibels(noise / peakEnergy), errorDb);
+    }
+
+    /**
+     * Mean energy of the last tenth of the kernel if that stretch is a noise floor, otherwise 0. It counts as one when
+     * it is long enough to measure, flat rather than still decaying, and well below the loudest part of the kernel.
+     */
+    private static double noiseFloor(double[] energy) {
+        int count = (int) (energy.length * NOISE_ESTIMATE_FRACTION);
+        if (count < 2 * ENVELOPE_WINDOW) {
+            return 0.0;
+        }
+        int start = energy.length - count;
+        int middle = start + count / 2;
+        double earlier = mean(energy, start, middle);
+        double later = mean(energy, middle, energy.length);
+        double flatness = Math.pow(10.0, NOISE_FLATNESS_DB / 10.0);
+        boolean flat = earlier <= later * flatness && later <= earlier * flatness;
+
+        double loudest = 0.0;
+        for (int from = 0; from < energy.length; from += ENVELOPE_WINDOW) {
+            loudest = Math.max(loudest, mean(energy, from, Math.min(energy.length, from + ENVELOPE_WINDOW)));
+        }
+        double noise = mean(energy, start, energy.length);
+        boolean belowSignal = noise <= loudest * Math.pow(10.0, -NOISE_DETECTION_DB / 10.0);
+        return flat && belowSignal ? noise : 0.0;
+    }
+
+    private static double mean(double[] values, int from, int to) {
+        double sum = 0.0;
+        for (int n = from; n < to; n++) {
+            sum += values[n];
+        }
+        return sum / (to - from);
+    }
+
+    private static double tailEnergy(double[] energy, int from) {
+        double sum = 0.0;
+        for (int n = from; n < energy.length; n++) {
+            sum += energy[n];
+        }
+        return sum;
+    }
+
+    /**
+     * End of the last envelope window that still stands clear of the noise floor.
+     */
+    private static int noiseOnset(double[] energy, double noise) {
+        double limit = noise * Math.pow(10.0, NOISE_MARGIN_DB / 10.0);
+        for (int end = energy.length; end > 0; end -= ENVELOPE_WINDOW) {
+            int start = Math.max(0, end - ENVELOPE_WINDOW);
+            double sum = 0.0;
+            for (int n = start; n < end; n++) {
+                sum += energy[n];
+            }
+            if (sum / (end - start) > limit) {
+                return end;
+            }
+        }
+        return energy.length;
+    }
+
+    /**
+     * First sample at which the backward-integrated decay drops below the threshold. With a noise floor, the floor is
+     * subtracted so the curve keeps falling instead of levelling off; pass 0 to integrate the raw energy.
+     */
+    private int schroederCut(double[] energy, double noise, int end) {
+        double[] decay = new double[end + 1];
+        for (int n = end - 1; n >= 0; n--) {
+            decay[n] = decay[n + 1] + Math.max(0.0, energy[n] - noise);
+        }
+        double limit = decay[0] * Math.pow(10.0, thresholdDb / 10.0);
+        for (int n = 0; n < end; n++) {
+            if (decay[n] <= limit) {
+                return n;
+            }
+        }
+        return end;
+    }
+
+    private static double decibels(double ratio) {
+        return 10.0 * Math.log10(ratio);
+    }
+
+    /**
+     * @param noiseFloorDb noise energy per sample relative to the peak, or negative infinity if no floor was found
+     * @param errorDb      energy of the removed tail relative to the whole kernel, which is also the relative error
+     *                     power of the convolution for a white input
+     */
+    public record TrimResult(double[] kernel, int originalLength, double noiseFloorDb, double errorDb) {
+        public int samplesSaved() {
+            return originalLength - kernel.length;
+        }
+    }
+}
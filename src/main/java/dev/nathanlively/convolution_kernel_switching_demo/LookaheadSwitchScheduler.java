@@ -0,0 +1,149 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Streaming convolver that accepts "switch to this kernel around sample T" requests and lets the
+ * {@link KernelSwitchPopPredictor} pick the least audible sample in {@code [T, T + toleranceSamples]}.
+ * <p>
+ * To see the whole tolerance window before committing, the output is delayed by {@code lookaheadSamples}: the
+ * block returned by {@link #process(double[])} is the convolution of the input received {@code lookaheadSamples}
+ * earlier. The chosen switch is applied sample-accurately inside that block.
+ */
+public class LookaheadSwitchScheduler {
+    // Flux context (+-1024) plus half an analysis window either side of the tolerance window
+    private static final int ANALYSIS_MARGIN = 1024 + SpectralFeatureTrack.WINDOW_SIZE / 2;
+
+    private final StreamingConvolver convolver;
+    private final KernelSwitchPopPredictor predictor;
+    private final int blockSize;
+    private final int lookaheadSamples;
+    private final int toleranceSamples;
+
+    private final double[] history;
+    private final Queue<SwitchRequest> incoming = new ConcurrentLinkedQueue<>();
+    private final PriorityQueue<SwitchRequest> waiting =
+            new PriorityQueue<>(Comparator.comparingLong(SwitchRequest::targetSample));
+    private final Deque<ScheduledSwitch> scheduled = new ArrayDeque<>();
+
+    private double[] plannedKernel;
+    private long samplesReceived;
+    private long lastScheduledSwitch = -1;
+    private volatile long lastAppliedSwitch = -1;
+
+    public LookaheadSwitchScheduler(double[] initialKernel, int blockSize, int sampleRate,
+                                    int lookaheadSamples, int toleranceSamples) {
+        if (toleranceSamples < 0) {
+            throw new IllegalArgumentException("toleranceSamples cannot be negative");
+        }
+        if (lookaheadSamples < toleranceSamples) {
+            throw new IllegalArgumentException("lookaheadSamples must cover the tolerance window");
+        }
+        this.convolver = new StreamingConvolver(initialKernel, blockSize);
+        this.predictor = new KernelSwitchPopPredictor(sampleRate);
+        this.blockSize = blockSize;
+        this.lookaheadSamples = lookaheadSamples;
+        this.toleranceSamples = toleranceSamples;
+        this.history = new double[ANALYSIS_MARGIN + initialKernel.length + lookaheadSamples + blockSize];
+        this.plannedKernel = initialKernel.clone();
+    }
+
+    /**
+     * The delay between a sample entering {@link #process(double[])} and its convolution leaving it.
+     */
+    public int latencySamples() {
+        return lookaheadSamples;
+    }
+
+    public int blockSize() {
+        return blockSize;
+    }
+
+    public long lastAppliedSwitch() {
+        return lastAppliedSwitch;
+    }
+
+    /**
+     * Requests a switch to {@code kernel} at or shortly after input sample {@code targetSample}. The kernel is
+     * transformed on the calling thread, so the processing thread only does the scheduling.
+     */
+    public void requestSwitch(double[] kernel, long targetSample) {
+        if (targetSample < 0) {
+            throw new IllegalArgumentException("target sample cannot be negative");
+        }
+        if (kernel.length > convolver.kernelLength()) {
+            throw new IllegalArgumentException("kernel cannot be longer than the initial kernel");
+        }
+        double[] snapshot = kernel.clone();
+        incoming.add(new SwitchRequest(snapshot, PreparedKernel.of(snapshot, convolver.fftSize()), targetSample));
+    }
+
+    public double[] process(double[] block) {
+        if (block.length != blockSize) {
+            throw new IllegalArgumentException("block length must equal blockSize");
+        }
+        System.arraycopy(history, blockSize, history, 0, history.length - blockSize);
+        System.arraycopy(block, 0, history, history.length - blockSize, blockSize);
+        samplesReceived += blockSize;
+
+        long blockStart = samplesReceived - blockSize - lookaheadSamples;
+        for (SwitchRequest request; (request = incoming.poll()) != null; ) {
+            waiting.add(request);
+        }
+        for (SwitchRequest request = waiting.peek();
+             request != null && request.targetSample() < blockStart + blockSize;
+             request = waiting.peek()) {
+            waiting.poll();
+            // Never schedule before the current block or before a switch that is already planned
+            long target = Math.max(request.targetSample(), Math.max(blockStart, lastScheduledSwitch + 1));
+            if (target >= blockStart + blockSize) {
+                waiting.add(new SwitchRequest(request.kernel(), request.prepared(), target));
+            } else {
+                schedule(request, target);
+            }
+        }
+
+        ScheduledSwitch next = scheduled.peek();
+        if (next != null && next.sampleIndex() < blockStart + blockSize) {
+            scheduled.poll();
+            // A second switch in the same block waits for the next block boundary
+            long sampleIndex = Math.max(next.sampleIndex(), blockStart);
+            convolver.activateAt(next.kernel(), (int) (sampleIndex - blockStart));
+            lastAppliedSwitch = sampleIndex;
+        }
+
+        int offset = (int) (blockStart - historyStart());
+        double[] delayedInput = new double[blockSize];
+        System.arraycopy(history, offset, delayedInput, 0, blockSize);
+        return convolver.process(delayedInput);
+    }
+
+    private void schedule(SwitchRequest request, long target) {
+        long historyStart = historyStart();
+        long segmentStart = Math.max(historyStart, target - ANALYSIS_MARGIN - plannedKernel.length);
+        long segmentEnd = Math.min(samplesReceived, target + toleranceSamples + ANALYSIS_MARGIN);
+        double[] segment = new double[(int) (segmentEnd - segmentStart)];
+        System.arraycopy(history, (int) (segmentStart - historyStart), segment, 0, segment.length);
+
+        SwitchPoint best = predictor.findQuietestSwitchPoint(segment, plannedKernel, request.kernel(),
+                (int) (target - segmentStart), toleranceSamples);
+        lastScheduledSwitch = segmentStart + best.sampleIndex();
+        scheduled.add(new ScheduledSwitch(lastScheduledSwitch, request.prepared()));
+        plannedKernel = request.kernel();
+    }
+
+    private long historyStart() {
+        return samplesReceived - history.length;
+    }
+
+    private record SwitchRequest(double[] kernel, PreparedKernel prepared, long targetSample) {
+    }
+
+    private record ScheduledSwitch(long sampleIndex, PreparedKernel kernel) {
+    }
+}
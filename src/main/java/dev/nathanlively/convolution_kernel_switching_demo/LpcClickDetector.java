@@ -0,0 +1,217 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import java.util.Arrays;
+
+/**
+ * Streaming version of Vaseghi's LPC click detector. Every 256 samples the last 512-sample frame is fitted with a
+ * linear predictor (Levinson-Durbin on the Hann-windowed autocorrelation) and the prediction error
+ * e[n] = x[n] - sum(a_i * x[n - i]) is checked over the middle hop of the frame, after a matched filter that folds
+ * an impulse's error back onto its own sample. A sample is a click when that error exceeds {@code thresholdFactor}
+ * times a robust estimate of its standard deviation (median absolute error / 0.6745). Nothing is allocated per frame.
+ * <p>
+ * The last quarter frame of a stream is only evaluated once more samples arrive.
+ */
+public class LpcClickDetector {
+    static final int FRAME_SIZE = 512;
+    static final int HOP_SIZE = 256;
+    private static final int DEFAULT_ORDER = 20;
+    private static final double DEFAULT_THRESHOLD_FACTOR = 15.0;
+    // Prediction errors below this are never clicks, so silence does not trigger on rounding noise
+    private static final double MIN_THRESHOLD = 1e-4;
+    private static final double MAD_TO_STANDARD_DEVIATION = 1.0 / 0.6745;
+    private static final int EVALUATION_START = (FRAME_SIZE - HOP_SIZE) / 2;
+    private static final int EVALUATION_END = EVALUATION_START + HOP_SIZE;
+
+    private final int order;
+    private final double thresholdFactor;
+    private final double[] window = SignalTransformer.createHannWindow(FRAME_SIZE);
+    private final double[] ringBuffer = new double[FRAME_SIZE];
+    private final double[] frame = new double[FRAME_SIZE];
+    private final double[] windowedFrame = new double[FRAME_SIZE];
+    private final double[] autocorrelation;
+    private final double[] coefficients;
+    private final double[] previousCoefficients;
+    private final double[] predictionErrors = new double[FRAME_SIZE];
+    private final double[] errors = new double[EVALUATION_END];
+    private final double[] sortedErrors = new double[EVALUATION_END];
+
+    private int writePosition;
+    private long samplesSeen;
+    private long framesAnalyzed;
+    private long lastExceedance = -1;
+    private double peakError;
+    private long[] clicks = new long[16];
+    private int clickCount;
+
+    public LpcClickDetector() {
+        this(DEFAULT_ORDER, DEFAULT_THRESHOLD_FACTOR);
+    }
+
+    public LpcClickDetector(int order, double thresholdFactor) {
+        if (order <= 0 || order > EVALUATION_START) {
+            throw new IllegalArgumentException("order must be between 1 and " + EVALUATION_START);
+        }
+        if (thresholdFactor <= 0) {
+            throw new IllegalArgumentException("thresholdFactor must be positive");
+        }
+        this.order = order;
+        this.thresholdFactor = thresholdFactor;
+        this.autocorrelation = new double[order + 1];
+        this.coefficients = new double[order + 1];
+        this.previousCoefficients = new double[order + 1];
+    }
+
+    /**
+     * Runs a fresh detector over a whole signal and returns the sample index of each click.
+     */
+    public static long[] detect(double[] signal) {
+        LpcClickDetector detector = new LpcClickDetector();
+        detector.push(signal, 0, signal.length);
+        return detector.clicks();
+    }
+
+    /**
+     * @return {@code true} when this sample completed a hop and the hop contained a new click
+     */
+    public boolean push(double sample) {
+        ringBuffer[writePosition] = sample;
+        writePosition = (writePosition + 1) % FRAME_SIZE;
+        samplesSeen++;
+
+        if (samplesSeen < FRAME_SIZE || (samplesSeen - FRAME_SIZE) % HOP_SIZE != 0) {
+            return false;
+        }
+        return analyzeFrame();
+    }
+
+    public void push(double[] samples, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            push(samples[i]);
+        }
+    }
+
+    public long samplesSeen() {
+        return samplesSeen;
+    }
+
+    public int clickCount() {
+        return clickCount;
+    }
+
+    /**
+     * Sample indices, counted from the first pushed sample, where each click peaks.
+     */
+    public long[] clicks() {
+        return Arrays.copyOf(clicks, clickCount);
+    }
+
+    public void reset() {
+        Arrays.fill(ringBuffer, 0.0);
+        writePosition = 0;
+        samplesSeen = 0;
+        framesAnalyzed = 0;
+        lastExceedance = -1;
+        clickCount = 0;
+    }
+
+    private boolean analyzeFrame() {
+        // writePosition now points at the oldest sample in the ring
+        for (int i = 0; i < FRAME_SIZE; i++) {
+            frame[i] = ringBuffer[(writePosition + i) % FRAME_SIZE];
+            windowedFrame[i] = frame[i] * window[i];
+        }
+        long frameStart = samplesSeen - FRAME_SIZE;
+        // The first frame also covers the samples before its middle hop
+        int evaluationStart = framesAnalyzed == 0 ? order : EVALUATION_START;
+        framesAnalyzed++;
+
+        if (!fitPredictor()) {
+            return false;
+        }
+        // Prediction error over the evaluated samples plus `order` more for the matched filter below
+        for (int n = evaluationStart; n < EVALUATION_END + order; n++) {
+            double prediction = 0.0;
+            for (int i = 1; i <= order; i++) {
+                prediction += coefficients[i] * frame[n - i];
+            }
+            predictionErrors[n] = frame[n] - prediction;
+        }
+        // Filtering with the time-reversed inverse filter concentrates an impulse's error back onto its sample
+        int errorCount = 0;
+        for (int n = evaluationStart; n < EVALUATION_END; n++) {
+            double matched = predictionErrors[n];
+            for (int i = 1; i <= order; i++) {
+                matched -= coefficients[i] * predictionErrors[n + i];
+            }
+            errors[errorCount++] = Math.abs(matched);
+        }
+        double threshold = Math.max(MIN_THRESHOLD, thresholdFactor * robustDeviation(errorCount));
+
+        int clicksBefore = clickCount;
+        for (int i = 0; i < errorCount; i++) {
+            if (errors[i] > threshold) {
+                recordExceedance(frameStart + evaluationStart + i, errors[i]);
+            }
+        }
+        return clickCount > clicksBefore;
+    }
+
+    private boolean fitPredictor() {
+        for (int lag = 0; lag <= order; lag++) {
+            double sum = 0.0;
+            for (int i = lag; i < FRAME_SIZE; i++) {
+                sum += windowedFrame[i] * windowedFrame[i - lag];
+            }
+            autocorrelation[lag] = sum;
+        }
+        if (autocorrelation[0] <= 0.0) {
+            return false;
+        }
+
+        // Levinson-Durbin recursion for the predictor x[n] ~ sum(a_i * x[n - i])
+        Arrays.fill(coefficients, 0.0);
+        double predictionError = autocorrelation[0];
+        for (int i = 1; i <= order; i++) {
+            double accumulator = autocorrelation[i];
+            for (int j = 1; j < i; j++) {
+                accumulator -= coefficients[j] * autocorrelation[i - j];
+            }
+            double reflection = accumulator / predictionError;
+            System.arraycopy(coefficients, 1, previousCoefficients, 1, i - 1);
+            coefficients[i] = reflection;
+            for (int j = 1; j < i; j++) {
+                coefficients[j] = previousCoefficients[j] - reflection * previousCoefficients[i - j];
+            }
+            predictionError *= 1.0 - reflection * reflection;
+            if (predictionError <= 0.0) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    private double robustDeviation(int errorCount) {
+        System.arraycopy(errors, 0, sortedErrors, 0, errorCount);
+        Arrays.sort(sortedErrors, 0, errorCount);
+        double median = errorCount % 2 == 1
+                ? sortedErrors[errorCount / 2]
+                : 0.5 * (sortedErrors[errorCount / 2 - 1] + sortedErrors[errorCount / 2]);
+        return median * MAD_TO_STANDARD_DEVIATION;
+    }
+
+    private void recordExceedance(long sampleIndex, double error) {
+        // A click disturbs `order` predictions either side of it, so exceedances that close together are one click
+        // located at their largest error
+        if (clickCount == 0 || sampleIndex - lastExceedance > order) {
+            if (clickCount == clicks.length) {
+                clicks = Arrays.copyOf(clicks, clickCount * 2);
+            }
+            clicks[clickCount++] = sampleIndex;
+            peakError = error;
+        } else if (error > peakError) {
+            clicks[clickCount - 1] = sampleIndex;
+            peakError = error;
+        }
+        lastExceedance = sampleIndex;
+    }
+}
@@ -1,15 +1,13 @@
 package dev.nathanlively.convolution_kernel_switching_demo;
 
 public class MaskingFactorCalculator {
-    private final SpectralFlatnessCalculator flatnessCalc = new SpectralFlatnessCalculator();
-    private final SpectralCrestCalculator crestCalc = new SpectralCrestCalculator();
 
     double calculateMaskingFactor(double[] spectrum) {
-        SpectralFlatnessCalculator spectralFlatnessCalculator = new SpectralFlatnessCalculator();
-        SpectralCrestCalculator crestCalc = new SpectralCrestCalculator();
-        double spectralFlatness = spectralFlatnessCalculator.calculateFlatness(spectrum);
-        double spectralCrest = crestCalc.calculateCrest(spectrum);
+        SpectralFeatureExtractor.SpectrumSummary summary = SpectralFeatureExtractor.summary(spectrum);
+        return calculateMaskingFactor(summary.flatness(), summary.crest());
+    }
 
+    double calculateMaskingFactor(double spectralFlatness, double spectralCrest) {
         // Pure tones: very low flatness AND moderate crest (concentrated energy)
         if (spectralFlatness < 0.01 && spectralCrest > 300 && spectralCrest < 5000) {
             return 1.0;
@@ -42,8 +40,9 @@ public class MaskingFactorCalculator {
      * Alternative approach using perceptual categories
      */
     public double calculateMaskingFactorPerceptual(double[] powerSpectrum) {
-        double flatness = flatnessCalc.calculateFlatness(powerSpectrum);
-        double crest = crestCalc.calculateCrest(powerSpectrum);
+        SpectralFeatureExtractor.SpectrumSummary summary = SpectralFeatureExtractor.summary(powerSpectrum);
+        double flatness = summary.flatness();
+        double crest = summary.crest();
 
         // Categorize based on empirical thresholds
         if (flatness > 0.1) {
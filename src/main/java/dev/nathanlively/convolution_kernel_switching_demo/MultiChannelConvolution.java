@@ -0,0 +1,78 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.apache.commons.numbers.complex.Complex;
+
+import java.util.stream.IntStream;
+
+/**
+ * Convolves every channel of a multichannel signal with the same kernel, two channels per FFT. Channel pairs are
+ * packed as the real and imaginary parts of one complex block; because the kernel is real, multiplying that block's
+ * spectrum by the kernel's and inverting gives the first channel's result in the real part and the second's in the
+ * imaginary part. A stereo render therefore needs half the forward and inverse transforms of running
+ * {@link OverlapSaveAdapter} once per channel. An odd last channel is paired with silence.
+ */
+public class MultiChannelConvolution {
+
+    public WavFileReader.MultiChannelWavFile with(WavFileReader.MultiChannelWavFile input, double[] kernel) {
+        return new WavFileReader.MultiChannelWavFile(input.sampleRate(), with(input.channels(), kernel));
+    }
+
+    /**
+     * @return one result per channel, each {@code kernel.length - 1} samples longer than the input
+     */
+    public double[][] with(double[][] channels, double[] kernel) {
+        if (channels.length == 0) {
+            throw new IllegalArgumentException("channels cannot be empty");
+        }
+        int signalLength = channels[0].length;
+        for (double[] channel : channels) {
+            SignalTransformer.validate(channel, kernel);
+            if (channel.length != signalLength) {
+                throw new IllegalArgumentException("all channels must have the same length");
+            }
+        }
+        int kernelLength = kernel.length;
+        int fftSize = SignalTransformer.calculateOptimalFftSize(signalLength, kernelLength);
+        Complex[] kernelTransform = SignalTransformer.fft(SignalTransformer.pad(kernel, fftSize));
+
+        double[][] results = new double[channels.length][signalLength + kernelLength - 1];
+        IntStream.range(0, (channels.length + 1) / 2).parallel().forEach(pair -> {
+            int first = 2 * pair;
+            int second = first + 1;
+            double[] secondChannel = second < channels.length ? channels[second] : new double[signalLength];
+            double[] secondResult = second < channels.length ? results[second] : new double[results[first].length];
+            convolvePair(channels[first], secondChannel, kernelLength, fftSize, kernelTransform,
+                    results[first], secondResult);
+        });
+        return results;
+    }
+
+    private static void convolvePair(double[] first, double[] second, int kernelLength, int fftSize,
+                                     Complex[] kernelTransform, double[] firstResult, double[] secondResult) {
+        int blockSize = fftSize - kernelLength + 1;
+        int resultLength = firstResult.length;
+        double[] paddedFirst = SignalTransformer.pad(first, kernelLength - 1, fftSize);
+        double[] paddedSecond = SignalTransformer.pad(second, kernelLength - 1, fftSize);
+        Complex[] packed = new Complex[fftSize];
+
+        int totalBlocks = (resultLength + blockSize - 1) / blockSize;
+        for (int blockIndex = 0; blockIndex < totalBlocks; blockIndex++) {
+            int inputStartIndex = blockIndex * blockSize;
+            for (int i = 0; i < fftSize; i++) {
+                int n = inputStartIndex + i;
+                packed[i] = n < paddedFirst.length
+                        ? Complex.ofCartesian(paddedFirst[n], paddedSecond[n])
+                        : Complex.ZERO;
+            }
+            Complex[] blockResult = SignalTransformer.complexIfft(
+                    SignalTransformer.multiply(SignalTransformer.fft(packed), kernelTransform));
+
+            int validLength = Math.min(blockSize, resultLength - inputStartIndex);
+            for (int i = 0; i < validLength; i++) {
+                Complex sample = blockResult[kernelLength - 1 + i];
+                firstResult[inputStartIndex + i] = sample.getReal();
+                secondResult[inputStartIndex + i] = sample.getImaginary();
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import java.util.Arrays;
+
+/**
+ * Two-level non-uniform partitioned convolver. The first {@code tailBlockSize} taps run in small partitions for low
+ * latency and the rest of the kernel in large ones, which need far fewer spectrum multiplies per sample. The large
+ * partitions only have to deliver output {@code tailBlockSize} samples after their input block completes, exactly when
+ * the head hands over, so the whole kernel still runs at the small block's latency.
+ * <p>
+ * The tail's transforms run in the small block that completes each large block rather than being spread across the
+ * large block, so the cost per call is uneven.
+ */
+public class NonUniformPartitionedConvolver implements BlockConvolver {
+    private final int blockSize;
+    private final int tailBlockSize;
+    private final PartitionedConvolver head;
+    private final PartitionedConvolver tail;
+    private final double[] tailInput;
+    private double[] tailOutput;
+    private int position;
+
+    public NonUniformPartitionedConvolver(double[] kernel, int blockSize, int tailBlockSize) {
+        if (tailBlockSize <= blockSize || tailBlockSize % blockSize != 0) {
+            throw new IllegalArgumentException("tailBlockSize must be a larger multiple of blockSize");
+        }
+        if (kernel.length <= tailBlockSize) {
+            throw new IllegalArgumentException("kernel must be longer than tailBlockSize");
+        }
+        this.blockSize = blockSize;
+        this.tailBlockSize = tailBlockSize;
+        this.head = new PartitionedConvolver(Arrays.copyOf(kernel, tailBlockSize), blockSize);
+        this.tail = new PartitionedConvolver(Arrays.copyOfRange(kernel, tailBlockSize, kernel.length), tailBlockSize);
+        this.tailInput = new double[tailBlockSize];
+        this.tailOutput = new double[tailBlockSize];
+    }
+
+    @Override
+    public int blockSize() {
+        return blockSize;
+    }
+
+    public int tailBlockSize() {
+        return tailBlockSize;
+    }
+
+    @Override
+    public double[] process(double[] block) {
+        double[] output = head.process(block);
+        // The tail output computed from the previous large block covers exactly this large block's output samples
+        for (int n = 0; n < blockSize; n++) {
+            output[n] += tailOutput[position + n];
+        }
+        System.arraycopy(block, 0, tailInput, position, blockSize);
+        position += blockSize;
+        if (position == tailBlockSize) {
+            tailOutput = tail.process(tailInput);
+            position = 0;
+        }
+        return output;
+    }
+}
@@ -0,0 +1,80 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.apache.arrow.memory.util.CommonUtil;
+import org.apache.commons.numbers.complex.Complex;
+
+import java.util.List;
+
+/**
+ * Overlap-add counterpart of {@link OverlapSaveAdapter}. The signal is cut into segments, each segment is convolved in
+ * full and the results are summed where their tails overlap.
+ * <p>
+ * Kernel switching follows the input rather than the output: the samples of period {@code p} are convolved with kernel
+ * {@code p % kernels.size()} and their tail is left to ring out under that kernel, overlapping the start of the next
+ * period. Overlap-save instead cuts every output block to the active kernel, so the previous kernel's tail stops
+ * abruptly at the switch. Without switching the two give the same result.
+ */
+public class OverlapAddAdapter implements Convolution {
+
+    @Override
+    public double[] with(double[] signal, double[] kernel) {
+        SignalTransformer.validate(signal, kernel);
+        return with(signal, List.of(kernel), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public double[] with(double[] signal, List<double[]> kernels, int periodSamples) {
+        validateInputs(signal, kernels, periodSamples);
+        // A single kernel never switches, so segments need not stop at period boundaries
+        int period = kernels.size() == 1 ? Integer.MAX_VALUE : periodSamples;
+        int kernelLength = kernels.getFirst().length;
+        int segmentLength = segmentLength(signal.length, kernelLength, period);
+        int fftSize = CommonUtil.nextPowerOfTwo(segmentLength + kernelLength - 1);
+        double[] result = new double[signal.length + kernelLength - 1];
+
+        List<Complex[]> kernelTransforms = SignalTransformer.precomputeKernelTransforms(kernels, fftSize);
+        int segmentStart = 0;
+        while (segmentStart < signal.length) {
+            // Segments never straddle a period boundary, so each one is filtered by a single kernel
+            long periodIndex = segmentStart / period;
+            long periodEnd = (periodIndex + 1) * period;
+            int segmentEnd = (int) Math.min(Math.min(segmentStart + (long) segmentLength, periodEnd), signal.length);
+            Complex[] kernelTransform = kernelTransforms.get((int) (periodIndex % kernels.size()));
+
+            double[] segment = new double[fftSize];
+            System.arraycopy(signal, segmentStart, segment, 0, segmentEnd - segmentStart);
+            double[] segmentResult = SignalTransformer.processConvolutionBlock(SignalTransformer.fft(segment),
+                    kernelTransform);
+
+            int outputLength = Math.min(segmentEnd - segmentStart + kernelLength - 1, result.length - segmentStart);
+            for (int i = 0; i < outputLength; i++) {
+                result[segmentStart + i] += segmentResult[i];
+            }
+            segmentStart = segmentEnd;
+        }
+        return result;
+    }
+
+    /**
+     * Longest segment that is worth transforming at once: the overlap-save block for the whole signal, or one period
+     * when that is shorter.
+     */
+    static int segmentLength(int signalLength, int kernelLength, int periodSamples) {
+        int fftSize = SignalTransformer.calculateOptimalFftSize(signalLength, kernelLength);
+        return Math.min(fftSize - kernelLength + 1, periodSamples);
+    }
+
+    private static void validateInputs(double[] signal, List<double[]> kernels, int periodSamples) {
+        if (kernels.isEmpty()) {
+            throw new IllegalArgumentException("kernels cannot be empty");
+        }
+        SignalTransformer.validate(signal, kernels.getFirst());
+        if (periodSamples <= 0) {
+            throw new IllegalArgumentException("periodSamples must be positive");
+        }
+        int kernelLength = kernels.getFirst().length;
+        if (kernels.stream().anyMatch(kernel -> kernel.length != kernelLength)) {
+            throw new IllegalArgumentException("all kernels must have the same length");
+        }
+    }
+}
@@ -2,11 +2,35 @@ package dev.nathanlively.convolution_kernel_switching_demo;
 
 import org.apache.arrow.memory.util.CommonUtil;
 import org.apache.commons.numbers.complex.Complex;
+import org.jspecify.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.IntStream;
 
 public class OverlapSaveAdapter implements Convolution {
+    private final SwitchCrossfade crossfade;
+    private final boolean sparseFastPath;
+
+    public OverlapSaveAdapter() {
+        this(SwitchCrossfade.none());
+    }
+
+    /**
+     * @param crossfade decides, at each kernel change, how many samples to crossfade from the previous kernel's output
+     */
+    public OverlapSaveAdapter(SwitchCrossfade crossfade) {
+        this(crossfade, true);
+    }
+
+    /**
+     * @param sparseFastPath whether few-tap kernels skip the FFT; disabled only to compare both paths
+     */
+    OverlapSaveAdapter(SwitchCrossfade crossfade, boolean sparseFastPath) {
+        this.crossfade = crossfade;
+        this.sparseFastPath = sparseFastPath;
+    }
 
     @Override
     public double[] with(double[] signal, double[] kernel) {
@@ -18,6 +42,12 @@ public class OverlapSaveAdapter implements Convolution {
     public double[] with(double[] signal, List<double[]> kernels, int periodSamples) {
         validateInputs(signal, kernels, periodSamples);
 
+        // Gains, delays and other few-tap kernels are cheaper as direct shifted copies than through any FFT
+        List<SparseKernel> sparseKernels = sparseFastPath ? sparseKernels(kernels) : null;
+        if (sparseKernels != null) {
+            return convolveSparse(signal, kernels, sparseKernels, periodSamples);
+        }
+
         // Use an optimized single-kernel path when appropriate
         if (kernels.size() == 1 && periodSamples >= signal.length) {
             return convolveSingleKernelOptimized(signal, kernels.getFirst());
@@ -26,6 +56,45 @@ public class OverlapSaveAdapter implements Convolution {
         return convolveWithKernelSwitching(signal, kernels, periodSamples);
     }
 
+    /**
+     * Transforms each input block once and multiplies it by every kernel's spectrum, running the kernels in parallel.
+     * Shorter kernels are zero-padded to the longest, which leaves their results unchanged.
+     */
+    @Override
+    public List<double[]> withEach(double[] signal, List<double[]> kernels) {
+        if (kernels.isEmpty()) {
+            throw new IllegalArgumentException("kernels cannot be empty");
+        }
+        kernels.forEach(kernel -> SignalTransformer.validate(signal, kernel));
+
+        int maxKernelLength = kernels.stream().mapToInt(kernel -> kernel.length).max().orElseThrow();
+        int fftSize = SignalTransformer.calculateOptimalFftSize(signal.length, maxKernelLength);
+        int blockSize = fftSize - maxKernelLength + 1;
+        int maxResultLength = signal.length + maxKernelLength - 1;
+
+        List<Complex[]> kernelTransforms = SignalTransformer.precomputeKernelTransforms(kernels, fftSize);
+        double[][] results = kernels.stream()
+                .map(kernel -> new double[signal.length + kernel.length - 1])
+                .toArray(double[][]::new);
+        double[] paddedSignal = SignalTransformer.pad(signal, maxKernelLength - 1, fftSize);
+
+        int totalBlocks = (maxResultLength + blockSize - 1) / blockSize;
+        for (int blockIndex = 0; blockIndex < totalBlocks; blockIndex++) {
+            int outputStartIndex = blockIndex * blockSize;
+            Complex[] inputTransform = SignalTransformer.transformBlock(paddedSignal, outputStartIndex, fftSize);
+            IntStream.range(0, kernels.size()).parallel().forEach(kernelIndex -> {
+                double[] result = results[kernelIndex];
+                int validLength = Math.min(blockSize, result.length - outputStartIndex);
+                if (validLength > 0) {
+                    double[] blockResult = SignalTransformer.processConvolutionBlock(
+                            inputTransform, kernelTransforms.get(kernelIndex));
+                    System.arraycopy(blockResult, maxKernelLength - 1, result, outputStartIndex, validLength);
+                }
+            });
+        }
+        return List.of(results);
+    }
+
     private double[] convolveSingleKernelOptimized(double[] signal, double[] kernel) {
         int kernelLength = kernel.length;
         int fftSize = SignalTransformer.calculateOptimalFftSize(signal.length, kernelLength);
@@ -71,10 +140,22 @@ public class OverlapSaveAdapter implements Convolution {
             Complex[] kernelTransform = kernelTransforms.get(kernelIndex);
 
             int inputStartIndex = blockIndex * periodSamples;
-            double[] blockResult = SignalTransformer.processConvolutionBlock(
-                    paddedSignal, inputStartIndex, fftSize, kernelTransform);
+            Complex[] inputTransform = SignalTransformer.transformBlock(paddedSignal, inputStartIndex, fftSize);
+            double[] blockResult = SignalTransformer.processConvolutionBlock(inputTransform, kernelTransform);
 
             int validLength = Math.min(periodSamples, result.length - outputStartIndex);
+            int previousKernelIndex = (blockIndex + kernels.size() - 1) % kernels.size();
+            if (blockIndex > 0 && previousKernelIndex != kernelIndex && validLength > 0) {
+                int fadeLength = Math.min(validLength, crossfade.fadeLength(
+                        signal, kernels.get(previousKernelIndex), kernels.get(kernelIndex), outputStartIndex));
+                if (fadeLength > 0) {
+                    // The input spectrum does not depend on the kernel, so a transition block costs one extra
+                    // multiply and inverse FFT rather than a second convolution
+                    double[] previousResult = SignalTransformer.processConvolutionBlock(
+                            inputTransform, kernelTransforms.get(previousKernelIndex));
+                    crossfade(previousResult, blockResult, kernelLength - 1, fadeLength);
+                }
+            }
             if (validLength > 0) {
                 System.arraycopy(blockResult, kernelLength - 1, result, outputStartIndex, validLength);
             }
@@ -83,6 +164,59 @@ public class OverlapSaveAdapter implements Convolution {
         return result.length == resultLength ? result : Arrays.copyOf(result, resultLength);
     }
 
+    private static @Nullable List<SparseKernel> sparseKernels(List<double[]> kernels) {
+        List<SparseKernel> sparseKernels = new ArrayList<>(kernels.size());
+        for (double[] kernel : kernels) {
+            SparseKernel sparseKernel = SparseKernel.detect(kernel);
+            if (sparseKernel == null) {
+                return null;
+            }
+            sparseKernels.add(sparseKernel);
+        }
+        return sparseKernels;
+    }
+
+    private double[] convolveSparse(double[] signal, List<double[]> kernels, List<SparseKernel> sparseKernels,
+                                    int periodSamples) {
+        int resultLength = signal.length + kernels.getFirst().length - 1;
+        double[] result = new double[resultLength];
+        int totalBlocks = (int) ((resultLength + (long) periodSamples - 1) / periodSamples);
+
+        for (int blockIndex = 0; blockIndex < totalBlocks; blockIndex++) {
+            int outputStartIndex = blockIndex * periodSamples;
+            int validLength = Math.min(periodSamples, resultLength - outputStartIndex);
+            int kernelIndex = blockIndex % kernels.size();
+            double[] blockResult = sparseKernels.get(kernelIndex)
+                    .convolveRange(signal, outputStartIndex, outputStartIndex + validLength);
+
+            int previousKernelIndex = (blockIndex + kernels.size() - 1) % kernels.size();
+            if (blockIndex > 0 && previousKernelIndex != kernelIndex) {
+                int fadeLength = Math.min(validLength, crossfade.fadeLength(
+                        signal, kernels.get(previousKernelIndex), kernels.get(kernelIndex), outputStartIndex));
+                if (fadeLength > 0) {
+                    double[] previousResult = sparseKernels.get(previousKernelIndex)
+                            .convolveRange(signal, outputStartIndex, outputStartIndex + fadeLength);
+                    crossfade(previousResult, blockResult, 0, fadeLength);
+                }
+            }
+            System.arraycopy(blockResult, 0, result, outputStartIndex, validLength);
+        }
+        return result;
+    }
+
+    /**
+     * Equal-gain fade over {@code fadeLength} samples from {@code offset}: the outgoing output is weighted by cos^2
+     * and the incoming one, updated in place, by sin^2, so the weights always sum to one. Both outputs come from the
+     * same input and are strongly correlated, so constant amplitude rather than constant power keeps the level flat.
+     */
+    private static void crossfade(double[] outgoing, double[] incoming, int offset, int fadeLength) {
+        for (int i = 0; i < fadeLength; i++) {
+            double sine = Math.sin(0.5 * Math.PI * (i + 0.5) / fadeLength);
+            double fadeIn = sine * sine;
+            incoming[offset + i] = fadeIn * incoming[offset + i] + (1.0 - fadeIn) * outgoing[offset + i];
+        }
+    }
+
     private void validateInputs(double[] signal, List<double[]> kernels, int periodSamples) {
         if (kernels.isEmpty()) {
             throw new IllegalArgumentException("kernels cannot be empty");
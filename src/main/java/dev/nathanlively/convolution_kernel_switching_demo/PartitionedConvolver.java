@@ -0,0 +1,161 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.apache.commons.numbers.complex.Complex;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Uniformly partitioned overlap-save convolver: the kernel is split into {@code blockSize}-sample partitions, each
+ * transformed at {@code 2 * blockSize}, and every block's input spectrum is kept in a frequency-domain delay line so
+ * that partition {@code p} meets the input from {@code p} blocks ago. Latency is one block whatever the kernel length.
+ * <p>
+ * {@link #updateKernel(double[])} compares the new kernel with the last one partition by partition and transforms only
+ * the partitions that changed, so slowly adapting filters pay for the size of each change rather than for the whole
+ * kernel. The new partition set replaces the old one in a single swap at the next block boundary.
+ */
+public class PartitionedConvolver implements BlockConvolver {
+    private final int blockSize;
+    private final int fftSize;
+    private final int partitionCount;
+    private final double[] inputFrame;
+    private final double[][] delayLineReal;
+    private final double[][] delayLineImaginary;
+    private final AtomicReference<PartitionSpectrum @Nullable []> nextPartitions = new AtomicReference<>();
+    private PartitionSpectrum[] activePartitions;
+    private int newestSlot;
+
+    // Guarded by this: the kernel most recently passed to updateKernel and its partitions
+    private final double[] latestKernel;
+    private PartitionSpectrum[] latestPartitions;
+
+    public PartitionedConvolver(double[] kernel, int blockSize) {
+        if (kernel.length == 0) {
+            throw new IllegalArgumentException("kernel cannot be empty");
+        }
+        if (blockSize <= 0 || Integer.bitCount(blockSize) != 1) {
+            throw new IllegalArgumentException("blockSize must be a positive power of two");
+        }
+        this.blockSize = blockSize;
+        this.fftSize = 2 * blockSize;
+        this.partitionCount = (kernel.length + blockSize - 1) / blockSize;
+        this.inputFrame = new double[fftSize];
+        this.delayLineReal = new double[partitionCount][blockSize + 1];
+        this.delayLineImaginary = new double[partitionCount][blockSize + 1];
+        this.latestKernel = Arrays.copyOf(kernel, partitionCount * blockSize);
+        this.latestPartitions = new PartitionSpectrum[partitionCount];
+        for (int p = 0; p < partitionCount; p++) {
+            latestPartitions[p] = transformPartition(latestKernel, p);
+        }
+        this.activePartitions = latestPartitions;
+    }
+
+    @Override
+    public int blockSize() {
+        return blockSize;
+    }
+
+    public int partitionCount() {
+        return partitionCount;
+    }
+
+    /**
+     * Longest kernel this convolver can hold.
+     */
+    public int capacity() {
+        return partitionCount * blockSize;
+    }
+
+    /**
+     * Queues {@code kernel} for the next block, re-transforming only the partitions that differ from the previous
+     * update. Shorter kernels are zero-padded. Safe to call from any thread; the audio thread only swaps a reference.
+     *
+     * @return the number of partitions that were transformed
+     */
+    public synchronized int updateKernel(double[] kernel) {
+        if (kernel.length == 0) {
+            throw new IllegalArgumentException("kernel cannot be empty");
+        }
+        if (kernel.length > capacity()) {
+            throw new IllegalArgumentException("kernel cannot be longer than the convolver capacity");
+        }
+        double[] padded = Arrays.copyOf(kernel, capacity());
+        PartitionSpectrum[] partitions = latestPartitions.clone();
+        int transformed = 0;
+        for (int p = 0; p < partitionCount; p++) {
+            int from = p * blockSize;
+            int to = from + blockSize;
+            if (!Arrays.equals(padded, from, to, latestKernel, from, to)) {
+                partitions[p] = transformPartition(padded, p);
+                transformed++;
+            }
+        }
+        if (transformed > 0) {
+            System.arraycopy(padded, 0, latestKernel, 0, padded.length);
+            latestPartitions = partitions;
+            nextPartitions.set(partitions);
+        }
+        return transformed;
+    }
+
+    @Override
+    public double[] process(double[] block) {
+        if (block.length != blockSize) {
+            throw new IllegalArgumentException("block length must equal blockSize");
+        }
+        PartitionSpectrum @Nullable [] pending = nextPartitions.getAndSet(null);
+        if (pending != null) {
+            activePartitions = pending;
+        }
+
+        // The frame is the previous block followed by this one
+        System.arraycopy(inputFrame, blockSize, inputFrame, 0, blockSize);
+        System.arraycopy(block, 0, inputFrame, blockSize, blockSize);
+        newestSlot = (newestSlot + partitionCount - 1) % partitionCount;
+        Complex[] inputTransform = SignalTransformer.fft(inputFrame);
+        for (int bin = 0; bin <= blockSize; bin++) {
+            delayLineReal[newestSlot][bin] = inputTransform[bin].getReal();
+            delayLineImaginary[newestSlot][bin] = inputTransform[bin].getImaginary();
+        }
+
+        // Real signals have conjugate-symmetric spectra, so only the lower half is accumulated
+        double[] sumReal = new double[blockSize + 1];
+        double[] sumImaginary = new double[blockSize + 1];
+        for (int p = 0; p < partitionCount; p++) {
+            int slot = (newestSlot + p) % partitionCount;
+            PartitionSpectrum partition = activePartitions[p];
+            double[] xReal = delayLineReal[slot];
+            double[] xImaginary = delayLineImaginary[slot];
+            for (int bin = 0; bin <= blockSize; bin++) {
+                sumReal[bin] += xReal[bin] * partition.real()[bin] - xImaginary[bin] * partition.imaginary()[bin];
+                sumImaginary[bin] += xReal[bin] * partition.imaginary()[bin] + xImaginary[bin] * partition.real()[bin];
+            }
+        }
+        Complex[] outputTransform = new Complex[fftSize];
+        for (int bin = 0; bin <= blockSize; bin++) {
+            outputTransform[bin] = Complex.ofCartesian(sumReal[bin], sumImaginary[bin]);
+        }
+        for (int bin = blockSize + 1; bin < fftSize; bin++) {
+            outputTransform[bin] = outputTransform[fftSize - bin].conj();
+        }
+        double[] frameResult = SignalTransformer.ifft(outputTransform);
+        return Arrays.copyOfRange(frameResult, blockSize, fftSize);
+    }
+
+    private PartitionSpectrum transformPartition(double[] kernel, int partition) {
+        double[] frame = new double[fftSize];
+        System.arraycopy(kernel, partition * blockSize, frame, 0, blockSize);
+        Complex[] transform = SignalTransformer.fft(frame);
+        double[] real = new double[blockSize + 1];
+        double[] imaginary = new double[blockSize + 1];
+        for (int bin = 0; bin <= blockSize; bin++) {
+            real[bin] = transform[bin].getReal();
+            imaginary[bin] = transform[bin].getImaginary();
+        }
+        return new PartitionSpectrum(real, imaginary);
+    }
+
+    private record PartitionSpectrum(double[] real, double[] imaginary) {
+    }
+}
@@ -0,0 +1,118 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static dev.nathanlively.convolution_kernel_switching_demo.KernelSwitchPopPredictor.BARK_CENTER_FREQUENCIES;
+import static dev.nathanlively.convolution_kernel_switching_demo.KernelSwitchPopPredictor.BARK_DISCONTINUITY_THRESHOLDS;
+
+/**
+ * The pop predictor's threshold tables resolved for one sample rate and analysis FFT size: the analysis window,
+ * each bin's Bark band and each bin's interpolated discontinuity threshold. Instances are immutable and cached, so
+ * every predictor running at the same rate shares one set of tables and the hot path only indexes arrays.
+ */
+public final class PerceptualModel {
+    private static final Map<Key, PerceptualModel> CACHE = new ConcurrentHashMap<>();
+
+    private final int sampleRate;
+    private final int fftSize;
+    private final double[] window;
+    private final int[] binBarkBands;
+    private final double[] binThresholds;
+    private final double minThreshold;
+    private final double maxThreshold;
+
+    private PerceptualModel(int sampleRate, int fftSize) {
+        this.sampleRate = sampleRate;
+        this.fftSize = fftSize;
+        this.window = SignalTransformer.createHannWindow(fftSize);
+
+        int binCount = fftSize / 2 + 1;
+        this.binBarkBands = new int[binCount];
+        this.binThresholds = new double[binCount];
+        for (int bin = 0; bin < binCount; bin++) {
+            double frequency = (double) bin * sampleRate / fftSize;
+            binBarkBands[bin] = barkBandForFrequency(frequency);
+            binThresholds[bin] = thresholdForFrequency(frequency);
+        }
+        this.minThreshold = Arrays.stream(binThresholds).min().orElseThrow();
+        this.maxThreshold = Arrays.stream(binThresholds).max().orElseThrow();
+    }
+
+    public static PerceptualModel of(int sampleRate, int fftSize) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sampleRate must be positive");
+        }
+        if (fftSize < 2 || Integer.bitCount(fftSize) != 1) {
+            throw new IllegalArgumentException("fftSize must be a power of two");
+        }
+        return CACHE.computeIfAbsent(new Key(sampleRate, fftSize), key -> new PerceptualModel(key.sampleRate(), key.fftSize()));
+    }
+
+    public int sampleRate() {
+        return sampleRate;
+    }
+
+    public int fftSize() {
+        return fftSize;
+    }
+
+    public int barkBandForBin(int bin) {
+        return binBarkBands[bin];
+    }
+
+    public double thresholdForBin(int bin) {
+        return binThresholds[bin];
+    }
+
+    /**
+     * Lowest threshold of any bin. Slightly below the Bark table's minimum, because bins under the first Bark
+     * center are extrapolated.
+     */
+    public double minThreshold() {
+        return minThreshold;
+    }
+
+    public double maxThreshold() {
+        return maxThreshold;
+    }
+
+    /**
+     * Shared Hann analysis window. Callers must not modify it.
+     */
+    double[] window() {
+        return window;
+    }
+
+    static double thresholdForFrequency(double frequency) {
+        // Find the appropriate threshold using linear interpolation
+        for (int i = 0; i < BARK_CENTER_FREQUENCIES.length - 1; i++) {
+            if (frequency <= BARK_CENTER_FREQUENCIES[i + 1]) {
+                double f1 = BARK_CENTER_FREQUENCIES[i];
+                double f2 = BARK_CENTER_FREQUENCIES[i + 1];
+                double t1 = BARK_DISCONTINUITY_THRESHOLDS[i];
+                double t2 = BARK_DISCONTINUITY_THRESHOLDS[i + 1];
+
+                // Linear interpolation
+                double ratio = (frequency - f1) / (f2 - f1);
+                return t1 + ratio * (t2 - t1);
+            }
+        }
+        // Above highest frequency
+        return BARK_DISCONTINUITY_THRESHOLDS[BARK_DISCONTINUITY_THRESHOLDS.length - 1];
+    }
+
+    private static int barkBandForFrequency(double frequency) {
+        int nearest = 0;
+        for (int i = 1; i < BARK_CENTER_FREQUENCIES.length; i++) {
+            if (Math.abs(BARK_CENTER_FREQUENCIES[i] - frequency) < Math.abs(BARK_CENTER_FREQUENCIES[nearest] - frequency)) {
+                nearest = i;
+            }
+        }
+        return nearest;
+    }
+
+    private record Key(int sampleRate, int fftSize) {
+    }
+}
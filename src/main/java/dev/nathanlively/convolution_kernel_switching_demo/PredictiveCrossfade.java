@@ -0,0 +1,41 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+/**
+ * Crossfades only switches the {@link KernelSwitchPopPredictor} expects to be audible, and longer the more audible
+ * they are: a quarter of {@code maxFadeSamples} when slightly audible, half when clearly audible, all of it when very
+ * audible. Inaudible switches stay hard cuts, so most blocks never pay for the second convolution.
+ */
+public class PredictiveCrossfade implements SwitchCrossfade {
+    // Equal-gain fades of 128-256 samples are the range recommended in the research notes
+    private static final int DEFAULT_MAX_FADE_SAMPLES = 256;
+
+    private final KernelSwitchPopPredictor predictor;
+    private final int maxFadeSamples;
+
+    public PredictiveCrossfade(int sampleRate) {
+        this(new KernelSwitchPopPredictor(sampleRate), DEFAULT_MAX_FADE_SAMPLES);
+    }
+
+    public PredictiveCrossfade(KernelSwitchPopPredictor predictor, int maxFadeSamples) {
+        if (maxFadeSamples <= 0) {
+            throw new IllegalArgumentException("maxFadeSamples must be positive");
+        }
+        this.predictor = predictor;
+        this.maxFadeSamples = maxFadeSamples;
+    }
+
+    @Override
+    public int fadeLength(double[] signal, double[] previousKernel, double[] nextKernel, int switchIndex) {
+        // Switches in the convolution tail, after the input has ended, have nothing left to analyze
+        if (switchIndex >= signal.length) {
+            return 0;
+        }
+        PerceptualImpact impact = predictor.predictAudibility(signal, previousKernel, nextKernel, switchIndex);
+        return switch (impact.level()) {
+            case WELL_BELOW_THRESHOLD, BELOW_THRESHOLD -> 0;
+            case SLIGHTLY_AUDIBLE -> Math.max(1, maxFadeSamples / 4);
+            case CLEARLY_AUDIBLE -> Math.max(1, maxFadeSamples / 2);
+            case VERY_AUDIBLE -> maxFadeSamples;
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.apache.commons.math4.legacy.exception.NoDataException;
+import org.apache.commons.numbers.complex.Complex;
+
+import java.util.Objects;
+
+public record PreparedKernel(int kernelLength, int fftSize, Complex[] transform) {
+    public PreparedKernel {
+        if (kernelLength <= 0) {
+            throw new IllegalArgumentException("kernel length must be positive");
+        }
+        if (transform.length != fftSize) {
+            throw new IllegalArgumentException("transform length must match fftSize");
+        }
+    }
+
+    public static PreparedKernel of(double[] kernel, int fftSize) {
+        validate(kernel, fftSize);
+        return new PreparedKernel(kernel.length, fftSize, SignalTransformer.fft(SignalTransformer.pad(kernel, fftSize)));
+    }
+
+    static void validate(double[] kernel, int fftSize) {
+        Objects.requireNonNull(kernel, "kernel cannot be null");
+        if (kernel.length == 0) {
+            throw new NoDataException();
+        }
+        if (fftSize < kernel.length || Integer.bitCount(fftSize) != 1) {
+            throw new IllegalArgumentException("fftSize must be a power of two no smaller than the kernel");
+        }
+    }
+}
@@ -49,6 +49,20 @@ public class SignalTransformer {
         return FORWARD_FFT.get().apply(signal);
     }
 
+    /**
+     * Transform of a complex signal, e.g. two real signals packed as real and imaginary parts.
+     */
+    public static Complex[] fft(Complex[] signal) {
+        return FORWARD_FFT.get().apply(signal);
+    }
+
+    /**
+     * Inverse transform keeping the imaginary parts, which {@link #ifft(Complex[])} drops.
+     */
+    public static Complex[] complexIfft(Complex[] transform) {
+        return INVERSE_FFT.get().apply(transform);
+    }
+
     public static double[] ifft(Complex[] transform) {
         Complex[] result = INVERSE_FFT.get().apply(transform);
 
@@ -131,15 +145,25 @@ public class SignalTransformer {
 
     public static double[] processConvolutionBlock(double[] paddedSignal, int inputStartIndex,
                                                    int fftSize, Complex[] kernelTransform) {
+        return processConvolutionBlock(transformBlock(paddedSignal, inputStartIndex, fftSize), kernelTransform);
+    }
+
+    /**
+     * Second half of {@link #processConvolutionBlock(double[], int, int, Complex[])}, for callers that apply several
+     * kernels to one block and only want to transform the input once.
+     */
+    public static double[] processConvolutionBlock(Complex[] inputTransform, Complex[] kernelTransform) {
+        Complex[] convolutionTransform = multiply(inputTransform, kernelTransform);
+        return ifft(convolutionTransform);
+    }
+
+    public static Complex[] transformBlock(double[] paddedSignal, int inputStartIndex, int fftSize) {
         double[] inputBlock = new double[fftSize];
         int copyLength = Math.min(fftSize, paddedSignal.length - inputStartIndex);
         if (copyLength > 0) {
             System.arraycopy(paddedSignal, inputStartIndex, inputBlock, 0, copyLength);
         }
-
-        Complex[] inputTransform = fft(inputBlock);
-        Complex[] convolutionTransform = multiply(inputTransform, kernelTransform);
-        return ifft(convolutionTransform);
+        return fft(inputBlock);
     }
 
     public static List<double[]> padKernelsToSameLength(List<double[]> kernels) {
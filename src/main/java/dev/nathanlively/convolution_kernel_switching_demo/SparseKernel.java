@@ -0,0 +1,59 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A kernel with only a few non-zero taps, such as a gain, a delay or a delay plus gain. Convolving with it is a
+ * handful of scaled, shifted copies of the signal, which is far cheaper than any FFT.
+ */
+public record SparseKernel(int length, int[] offsets, double[] gains) {
+    // Above this many taps a direct sum stops beating overlap-save's per-sample FFT cost
+    static final int MAX_TAPS = 8;
+
+    public SparseKernel {
+        if (length <= 0) {
+            throw new IllegalArgumentException("kernel length must be positive");
+        }
+        if (offsets.length != gains.length) {
+            throw new IllegalArgumentException("offsets and gains must have the same length");
+        }
+    }
+
+    /**
+     * @return the sparse form of {@code kernel}, or {@code null} if it has more than {@link #MAX_TAPS} non-zero taps
+     */
+    public static @Nullable SparseKernel detect(double[] kernel) {
+        int taps = 0;
+        for (double value : kernel) {
+            if (value != 0.0 && ++taps > MAX_TAPS) {
+                return null;
+            }
+        }
+        int[] offsets = new int[taps];
+        double[] gains = new double[taps];
+        for (int i = 0, tap = 0; i < kernel.length; i++) {
+            if (kernel[i] != 0.0) {
+                offsets[tap] = i;
+                gains[tap++] = kernel[i];
+            }
+        }
+        return new SparseKernel(kernel.length, offsets, gains);
+    }
+
+    /**
+     * Output samples {@code [from, to)} of the full convolution of {@code signal} with this kernel.
+     */
+    public double[] convolveRange(double[] signal, int from, int to) {
+        double[] output = new double[to - from];
+        for (int tap = 0; tap < offsets.length; tap++) {
+            int offset = offsets[tap];
+            double gain = gains[tap];
+            int start = Math.max(from, offset);
+            int end = (int) Math.min(to, (long) signal.length + offset);
+            for (int n = start; n < end; n++) {
+                output[n - from] += gain * signal[n - offset];
+            }
+        }
+        return output;
+    }
+}
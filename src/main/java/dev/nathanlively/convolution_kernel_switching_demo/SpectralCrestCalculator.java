@@ -1,13 +1,16 @@
 package dev.nathanlively.convolution_kernel_switching_demo;
 
-import java.util.Arrays;
-
 public class SpectralCrestCalculator {
     public double calculateCrest(double[] spectrum) {
         if (spectrum.length == 0) return 0.0;
 
-        double maximum = Arrays.stream(spectrum).max().orElse(0.0);
-        double mean = Arrays.stream(spectrum).average().orElse(0.0);
+        double maximum = spectrum[0];
+        double sum = 0.0;
+        for (double value : spectrum) {
+            maximum = Math.max(maximum, value);
+            sum += value;
+        }
+        double mean = sum / spectrum.length;
 
         return mean > 0 ? maximum / mean : 0.0;
     }
@@ -0,0 +1,194 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import java.util.Arrays;
+
+/**
+ * Computes every spectral feature the masking model uses in one pass over one FFT frame: power spectrum,
+ * magnitude peak, spectral flatness, spectral crest and spectral flux against the previous frame. All buffers are
+ * allocated up front, so instances are not thread-safe; keep one per thread.
+ */
+public class SpectralFeatureExtractor {
+    private static final double FLATNESS_FLOOR = 1e-10;
+
+    private final int fftSize;
+    private final double[] window;
+    private final InPlaceFft fft;
+    private final double[] real;
+    private final double[] imag;
+    private final double[] powerSpectrum;
+    private double[] magnitudes;
+    private double[] previousMagnitudes;
+    private boolean hasPrevious;
+
+    private double flatness;
+    private double crest;
+    private double spectralFlux;
+    private int peakBin;
+
+    public SpectralFeatureExtractor(int fftSize) {
+        this(SignalTransformer.createHannWindow(fftSize));
+    }
+
+    public SpectralFeatureExtractor(double[] window) {
+        this.fftSize = window.length;
+        this.window = window;
+        this.fft = new InPlaceFft(fftSize);
+        this.real = new double[fftSize];
+        this.imag = new double[fftSize];
+        this.powerSpectrum = new double[fftSize / 2 + 1];
+        this.magnitudes = new double[fftSize / 2];
+        this.previousMagnitudes = new double[fftSize / 2];
+    }
+
+    public int fftSize() {
+        return fftSize;
+    }
+
+    /**
+     * Windows the {@code fftSize} samples centered on {@code centerIndex} (zero outside the signal), transforms
+     * them and extracts all features. Flux is measured against the previous call since the last {@link #reset()}.
+     */
+    public SpectralFeatureExtractor analyzeFrame(double[] signal, int centerIndex) {
+        int start = centerIndex - fftSize / 2;
+        for (int i = 0; i < fftSize; i++) {
+            int signalIndex = start + i;
+            real[i] = signalIndex >= 0 && signalIndex < signal.length ? signal[signalIndex] * window[i] : 0.0;
+            imag[i] = 0.0;
+        }
+        fft.forward(real, imag);
+
+        int magnitudeBins = magnitudes.length;
+        int nonZeroCount = 0;
+        double nonZeroSum = 0.0;
+        double logSum = 0.0;
+        double totalPower = 0.0;
+        double maxPower = 0.0;
+        double maxMagnitude = Double.NEGATIVE_INFINITY;
+        double fluxSum = 0.0;
+        peakBin = 0;
+
+        for (int bin = 0; bin < powerSpectrum.length; bin++) {
+            double power = real[bin] * real[bin] + imag[bin] * imag[bin];
+            powerSpectrum[bin] = power;
+            totalPower += power;
+            maxPower = Math.max(maxPower, power);
+            if (power > FLATNESS_FLOOR) {
+                nonZeroCount++;
+                nonZeroSum += power;
+                logSum += Math.log(power);
+            }
+
+            if (bin < magnitudeBins) {
+                double magnitude = Math.sqrt(power);
+                magnitudes[bin] = magnitude;
+                if (magnitude > maxMagnitude) {
+                    maxMagnitude = magnitude;
+                    peakBin = bin;
+                }
+                double diff = magnitude - previousMagnitudes[bin];
+                if (diff > 0) {
+                    fluxSum += diff * diff;
+                }
+            }
+        }
+
+        flatness = flatness(nonZeroCount, nonZeroSum, logSum);
+        crest = crest(maxPower, totalPower, powerSpectrum.length);
+        spectralFlux = hasPrevious ? Math.sqrt(fluxSum) : 0.0;
+        hasPrevious = true;
+
+        double[] swap = previousMagnitudes;
+        previousMagnitudes = magnitudes;
+        magnitudes = swap;
+        return this;
+    }
+
+    /**
+     * Flatness and crest of an already computed spectrum in a single pass, without copying it. The peak bin is the
+     * index of the largest value.
+     */
+    public SpectralFeatureExtractor summarize(double[] spectrum) {
+        SpectrumSummary summary = summary(spectrum);
+        flatness = summary.flatness();
+        crest = summary.crest();
+        peakBin = summary.peakBin();
+        spectralFlux = 0.0;
+        return this;
+    }
+
+    /**
+     * Stateless form of {@link #summarize(double[])}, safe to share between threads and free of the frame buffers.
+     */
+    public static SpectrumSummary summary(double[] spectrum) {
+        int nonZeroCount = 0;
+        double nonZeroSum = 0.0;
+        double logSum = 0.0;
+        double total = 0.0;
+        double maximum = spectrum.length > 0 ? spectrum[0] : 0.0;
+        int peak = 0;
+
+        for (int bin = 0; bin < spectrum.length; bin++) {
+            double value = spectrum[bin];
+            total += value;
+            if (value > maximum) {
+                maximum = value;
+                peak = bin;
+            }
+            if (value > FLATNESS_FLOOR) {
+                nonZeroCount++;
+                nonZeroSum += value;
+                logSum += Math.log(value);
+            }
+        }
+        return new SpectrumSummary(flatness(nonZeroCount, nonZeroSum, logSum), crest(maximum, total, spectrum.length),
+                peak);
+    }
+
+    public void reset() {
+        hasPrevious = false;
+        Arrays.fill(previousMagnitudes, 0.0);
+    }
+
+    public double flatness() {
+        return flatness;
+    }
+
+    public double crest() {
+        return crest;
+    }
+
+    public double spectralFlux() {
+        return spectralFlux;
+    }
+
+    public int peakBin() {
+        return peakBin;
+    }
+
+    /**
+     * The power spectrum of the last analyzed frame. The array is reused by the next call.
+     */
+    double[] powerSpectrum() {
+        return powerSpectrum;
+    }
+
+    private static double flatness(int count, double sum, double logSum) {
+        if (count == 0 || sum == 0.0) {
+            return 0.0;
+        }
+        double geometricMean = Math.exp(logSum / count);
+        double arithmeticMean = sum / count;
+        return geometricMean / arithmeticMean;
+    }
+
+    private static double crest(double maximum, double total, int length) {
+        if (length == 0) {
+            return 0.0;
+        }
+        double mean = total / length;
+        return mean > 0 ? maximum / mean : 0.0;
+    }
+
+    public record SpectrumSummary(double flatness, double crest, int peakBin) {
+    }
+}
@@ -0,0 +1,101 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+/**
+ * One STFT over a stretch of signal, reduced to the per-frame features the pop predictor needs. Frame {@code k}
+ * is centered on sample {@code k * HOP_SIZE}, so any switch index can be scored from its nearest frame and the
+ * flux of the frames around it without running another FFT.
+ */
+public class SpectralFeatureTrack {
+    static final int WINDOW_SIZE = SpectralFluxCalculator.WINDOW_SIZE;
+    static final int HOP_SIZE = SpectralFluxCalculator.HOP_SIZE;
+    // A 2048-sample flux context holds 13 frames, i.e. 12 flux values, 6 frames either side of the center
+    static final int FLUX_CONTEXT_FRAMES = 6;
+
+    private final int firstFrame;
+    private final int[] peakBins;
+    private final double[] flatness;
+    private final double[] fluxPrefixSums;
+
+    private SpectralFeatureTrack(int firstFrame, int[] peakBins, double[] flatness, double[] fluxPrefixSums) {
+        this.firstFrame = firstFrame;
+        this.peakBins = peakBins;
+        this.flatness = flatness;
+        this.fluxPrefixSums = fluxPrefixSums;
+    }
+
+    public static SpectralFeatureTrack analyze(double[] signal, int fromIndex, int toIndex) {
+        return analyze(signal, fromIndex, toIndex, SignalTransformer.createHannWindow(WINDOW_SIZE));
+    }
+
+    static SpectralFeatureTrack analyze(double[] signal, int fromIndex, int toIndex, PerceptualModel model) {
+        if (model.fftSize() != WINDOW_SIZE) {
+            throw new IllegalArgumentException("model fftSize must match the track window size");
+        }
+        return analyze(signal, fromIndex, toIndex, model.window());
+    }
+
+    private static SpectralFeatureTrack analyze(double[] signal, int fromIndex, int toIndex, double[] window) {
+        if (fromIndex > toIndex) {
+            throw new IllegalArgumentException("fromIndex cannot be greater than toIndex");
+        }
+        int firstFrame = nearestFrame(fromIndex) - FLUX_CONTEXT_FRAMES;
+        int lastFrame = nearestFrame(toIndex) + FLUX_CONTEXT_FRAMES;
+        int frameCount = lastFrame - firstFrame + 1;
+
+        SpectralFeatureExtractor extractor = new SpectralFeatureExtractor(window);
+        int[] peakBins = new int[frameCount];
+        double[] flatness = new double[frameCount];
+        double[] fluxPrefixSums = new double[frameCount + 1];
+
+        for (int frame = 0; frame < frameCount; frame++) {
+            extractor.analyzeFrame(signal, (firstFrame + frame) * HOP_SIZE);
+            peakBins[frame] = extractor.peakBin();
+            flatness[frame] = extractor.flatness();
+            fluxPrefixSums[frame + 1] = fluxPrefixSums[frame] + extractor.spectralFlux();
+        }
+
+        return new SpectralFeatureTrack(firstFrame, peakBins, flatness, fluxPrefixSums);
+    }
+
+    static int nearestFrame(int sampleIndex) {
+        return Math.floorDiv(sampleIndex + HOP_SIZE / 2, HOP_SIZE);
+    }
+
+    public int fftSize() {
+        return WINDOW_SIZE;
+    }
+
+    public boolean covers(int sampleIndex) {
+        int frame = nearestFrame(sampleIndex);
+        return frame - FLUX_CONTEXT_FRAMES >= firstFrame
+               && frame + FLUX_CONTEXT_FRAMES < firstFrame + peakBins.length;
+    }
+
+    public int peakBin(int sampleIndex) {
+        return peakBins[localFrame(sampleIndex)];
+    }
+
+    public double flatness(int sampleIndex) {
+        return flatness[localFrame(sampleIndex)];
+    }
+
+    /**
+     * Same measure as {@link SpectralFluxCalculator#normalizedAverageFlux} over a 2048-sample context centered on
+     * the nearest frame, read from prefix sums in constant time.
+     */
+    public double normalizedAverageFlux(int sampleIndex) {
+        int center = localFrame(sampleIndex);
+        int fluxCount = 2 * FLUX_CONTEXT_FRAMES;
+        double totalFlux = fluxPrefixSums[center + FLUX_CONTEXT_FRAMES + 1]
+                           - fluxPrefixSums[center - FLUX_CONTEXT_FRAMES + 1];
+        double rawFlux = totalFlux / fluxCount;
+        return Math.min(1.0, rawFlux / SpectralFluxCalculator.NORMALIZATION_FACTOR);
+    }
+
+    private int localFrame(int sampleIndex) {
+        if (!covers(sampleIndex)) {
+            throw new IllegalArgumentException("sample index is outside the analyzed range");
+        }
+        return nearestFrame(sampleIndex) - firstFrame;
+    }
+}
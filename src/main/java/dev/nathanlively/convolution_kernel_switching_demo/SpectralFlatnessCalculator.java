@@ -1,24 +1,26 @@
 package dev.nathanlively.convolution_kernel_switching_demo;
 
-import java.util.Arrays;
-
 public class SpectralFlatnessCalculator {
     public double calculateFlatness(double[] powerSpectrum) {
-        // Filter out zeros to avoid log(0)
-        double[] nonZero = Arrays.stream(powerSpectrum)
-                .filter(x -> x > 1e-10)
-                .toArray();
+        // Skip zeros to avoid log(0)
+        int count = 0;
+        double sum = 0.0;
+        double logSum = 0.0;
+        for (double value : powerSpectrum) {
+            if (value > 1e-10) {
+                count++;
+                sum += value;
+                logSum += Math.log(value);
+            }
+        }
 
-        if (nonZero.length == 0) return 0.0;
+        if (count == 0) return 0.0;
 
-        double logSum = Arrays.stream(nonZero)
-                .map(Math::log)
-                .sum();
-        double geometricMean = Math.exp(logSum / nonZero.length);
-        double arithmeticMean = Arrays.stream(nonZero).average().orElse(0.0);
+        double geometricMean = Math.exp(logSum / count);
+        double arithmeticMean = sum / count;
 
         if (arithmeticMean == 0.0) return 0.0;
 
         return geometricMean / arithmeticMean;
     }
-}
\ No newline at end of file
+}
@@ -3,9 +3,10 @@ package dev.nathanlively.convolution_kernel_switching_demo;
 import org.apache.commons.numbers.complex.Complex;
 
 public class SpectralFluxCalculator {
-    private static final int WINDOW_SIZE = 512;
-    private static final int HOP_SIZE = WINDOW_SIZE / 4; // 75% overlap
-    private static final double NORMALIZATION_FACTOR = 14.253; // Based on actual observed max values
+    static final int WINDOW_SIZE = 512;
+    static final int HOP_SIZE = WINDOW_SIZE / 4; // 75% overlap
+    static final double NORMALIZATION_FACTOR = 14.253; // Based on actual observed max values
+    private static final double[] WINDOW = SignalTransformer.createHannWindow(WINDOW_SIZE);
 
     public double normalizedAverageFlux(double[] signal) {
         if (signal.length < WINDOW_SIZE * 2) {
@@ -13,7 +14,6 @@ public class SpectralFluxCalculator {
             return 0.0;
         }
 
-        double[] window = SignalTransformer.createHannWindow(WINDOW_SIZE);
         double totalFlux = 0.0;
         int fluxCount = 0;
 
@@ -22,7 +22,7 @@ public class SpectralFluxCalculator {
         for (int pos = 0; pos <= signal.length - WINDOW_SIZE; pos += HOP_SIZE) {
             double[] windowedFrame = new double[WINDOW_SIZE];
             for (int i = 0; i < WINDOW_SIZE; i++) {
-                windowedFrame[i] = signal[pos + i] * window[i];
+                windowedFrame[i] = signal[pos + i] * WINDOW[i];
             }
 
             Complex[] spectrum = SignalTransformer.fft(SignalTransformer.pad(windowedFrame,
@@ -0,0 +1,115 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.apache.arrow.memory.util.CommonUtil;
+import org.apache.commons.numbers.complex.Complex;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Block-by-block overlap-save convolver. Kernel switches take effect at the next block boundary, matching
+ * {@link OverlapSaveAdapter} when the period equals the block size, or at a given sample within the next block.
+ */
+public class StreamingConvolver implements BlockConvolver {
+    private final int blockSize;
+    private final int kernelLength;
+    private final int fftSize;
+    private final double[] inputFrame;
+    private final AtomicReference<@Nullable PendingSwitch> pendingSwitch = new AtomicReference<>();
+    private PreparedKernel activeKernel;
+
+    public StreamingConvolver(double[] kernel, int blockSize) {
+        this(PreparedKernel.of(kernel, fftSizeFor(blockSize, kernel.length)), blockSize);
+    }
+
+    public StreamingConvolver(PreparedKernel kernel, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must be positive");
+        }
+        if (kernel.fftSize() < blockSize + kernel.kernelLength() - 1) {
+            throw new IllegalArgumentException("fftSize is too small for the block size and kernel length");
+        }
+        this.blockSize = blockSize;
+        this.kernelLength = kernel.kernelLength();
+        this.fftSize = kernel.fftSize();
+        this.inputFrame = new double[fftSize];
+        this.activeKernel = kernel;
+    }
+
+    public static int fftSizeFor(int blockSize, int kernelLength) {
+        return CommonUtil.nextPowerOfTwo(blockSize + kernelLength - 1);
+    }
+
+    @Override
+    public int blockSize() {
+        return blockSize;
+    }
+
+    public int fftSize() {
+        return fftSize;
+    }
+
+    public int kernelLength() {
+        return kernelLength;
+    }
+
+    /**
+     * Queues a prepared kernel for the next block. Safe to call from any thread; only a reference is swapped.
+     */
+    public void activate(PreparedKernel kernel) {
+        activateAt(kernel, 0);
+    }
+
+    /**
+     * Queues a prepared kernel that takes over at {@code sampleOffset} within the next block. Output samples before
+     * the offset still use the current kernel; the block's input is transformed once and multiplied by both.
+     */
+    public void activateAt(PreparedKernel kernel, int sampleOffset) {
+        checkCompatible(kernel);
+        if (sampleOffset < 0 || sampleOffset >= blockSize) {
+            throw new IllegalArgumentException("sampleOffset must be within the block");
+        }
+        pendingSwitch.set(new PendingSwitch(kernel, sampleOffset));
+    }
+
+    @Override
+    public double[] process(double[] block) {
+        if (block.length != blockSize) {
+            throw new IllegalArgumentException("block length must equal blockSize");
+        }
+        PendingSwitch pending = pendingSwitch.getAndSet(null);
+        if (pending != null && pending.sampleOffset() == 0) {
+            activeKernel = pending.kernel();
+            pending = null;
+        }
+
+        System.arraycopy(block, 0, inputFrame, kernelLength - 1, blockSize);
+        Complex[] inputTransform = SignalTransformer.fft(inputFrame);
+        // Keep the last kernelLength - 1 input samples as history for the next block
+        System.arraycopy(inputFrame, blockSize, inputFrame, 0, kernelLength - 1);
+
+        double[] blockResult = SignalTransformer.processConvolutionBlock(inputTransform, activeKernel.transform());
+        double[] output = Arrays.copyOfRange(blockResult, kernelLength - 1, kernelLength - 1 + blockSize);
+        if (pending != null) {
+            double[] switchedResult = SignalTransformer.processConvolutionBlock(
+                    inputTransform, pending.kernel().transform());
+            int offset = pending.sampleOffset();
+            System.arraycopy(switchedResult, kernelLength - 1 + offset, output, offset, blockSize - offset);
+            activeKernel = pending.kernel();
+        }
+        return output;
+    }
+
+    void checkCompatible(PreparedKernel kernel) {
+        if (kernel.fftSize() != fftSize) {
+            throw new IllegalArgumentException("kernel fftSize must match the convolver fftSize");
+        }
+        if (kernel.kernelLength() > kernelLength) {
+            throw new IllegalArgumentException("kernel cannot be longer than the convolver kernel length");
+        }
+    }
+
+    private record PendingSwitch(PreparedKernel kernel, int sampleOffset) {
+    }
+}
@@ -0,0 +1,229 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * File-to-file renderer that decodes, convolves and encodes on three threads joined by bounded queues, so the stages
+ * overlap and memory stays at a few blocks per stage however long the file is. Each channel is convolved with the same
+ * kernel by its own {@link StreamingConvolver}; the output matches {@link OverlapSaveAdapter#with(double[], double[])}
+ * per channel, written as 16-bit PCM like {@link WavFileWriter}.
+ * <p>
+ * Nothing is normalized, because that would need the whole output; samples outside [-1, 1] are clamped.
+ */
+public class StreamingFileRenderer {
+    private static final int DEFAULT_BLOCK_SIZE = 4096;
+    private static final int DEFAULT_QUEUE_CAPACITY = 4;
+    private static final int OUTPUT_BIT_DEPTH = 16;
+    private static final Block END_OF_STREAM = new Block(new double[0][], 0);
+
+    private final double[] kernel;
+    private final int blockSize;
+    private final int queueCapacity;
+    private final WavFileReader reader = new WavFileReader();
+    private final WavFileWriter writer = new WavFileWriter();
+
+    public StreamingFileRenderer(double[] kernel) {
+        this(kernel, DEFAULT_BLOCK_SIZE, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public StreamingFileRenderer(double[] kernel, int blockSize, int queueCapacity) {
+        if (kernel.length == 0) {
+            throw new IllegalArgumentException("kernel cannot be empty");
+        }
+        if (blockSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("blockSize and queueCapacity must be positive");
+        }
+        this.kernel = kernel.clone();
+        this.blockSize = blockSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * @return the number of frames written
+     */
+    public long render(Path inputPath, Path outputPath) {
+        ExecutorService stages = Executors.newFixedThreadPool(3, runnable -> {
+            Thread thread = new Thread(runnable, "file-renderer-stage");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (AudioInputStream input = AudioSystem.getAudioInputStream(inputPath.toFile())) {
+            AudioFormat inputFormat = input.getFormat();
+            int channelCount = inputFormat.getChannels();
+            long outputFrames = input.getFrameLength() == AudioSystem.NOT_SPECIFIED
+                    ? AudioSystem.NOT_SPECIFIED
+                    : input.getFrameLength() + kernel.length - 1;
+            BlockingQueue<Block> decoded = new ArrayBlockingQueue<>(queueCapacity);
+            BlockingQueue<Block> convolved = new ArrayBlockingQueue<>(queueCapacity);
+
+            CompletionService<Long> completion = new ExecutorCompletionService<>(stages);
+            completion.submit(() -> decode(input, decoded));
+            completion.submit(() -> convolve(channelCount, decoded, convolved));
+            Future<Long> encoded = completion.submit(encode(inputFormat, outputFrames, convolved, outputPath));
+
+            for (int finished = 0; finished < 3; finished++) {
+                // Whichever stage fails first is reported; shutting down interrupts the others
+                completion.take().get();
+            }
+            return encoded.get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to render " + inputPath + " to " + outputPath, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while rendering " + inputPath, e);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to render " + inputPath + " to " + outputPath, e);
+        } finally {
+            stages.shutdownNow();
+        }
+    }
+
+    private long decode(AudioInputStream input, BlockingQueue<Block> decoded) throws IOException, InterruptedException {
+        AudioFormat format = input.getFormat();
+        int channelCount = format.getChannels();
+        int frameSize = format.getFrameSize();
+        byte[] buffer = new byte[blockSize * frameSize];
+        long frames = 0;
+        int bytesRead;
+        while ((bytesRead = input.readNBytes(buffer, 0, buffer.length)) > 0) {
+            int framesRead = bytesRead / frameSize;
+            double[][] channels = new double[channelCount][blockSize];
+            reader.convertBytesToSamples(buffer, bytesRead, channels, 0, channelCount, format.getSampleSizeInBits());
+            decoded.put(new Block(channels, framesRead));
+            frames += framesRead;
+        }
+        decoded.put(END_OF_STREAM);
+        return frames;
+    }
+
+    private long convolve(int channelCount, BlockingQueue<Block> decoded, BlockingQueue<Block> convolved)
+            throws InterruptedException {
+        StreamingConvolver[] convolvers = new StreamingConvolver[channelCount];
+        for (int c = 0; c < channelCount; c++) {
+            convolvers[c] = new StreamingConvolver(kernel, blockSize);
+        }
+        long inputFrames = 0;
+        long emitted = 0;
+        for (Block block = decoded.take(); block != END_OF_STREAM; block = decoded.take()) {
+            inputFrames += block.frames();
+            // Only the last block can be short, and then the output ends kernel.length - 1 frames after it
+            long validFrames = Math.min(blockSize, inputFrames + kernel.length - 1 - emitted);
+            emitted += emit(convolvers, block.channels(), (int) validFrames, convolved);
+        }
+        double[][] silence = new double[channelCount][blockSize];
+        while (emitted < inputFrames + kernel.length - 1) {
+            long validFrames = Math.min(blockSize, inputFrames + kernel.length - 1 - emitted);
+            emitted += emit(convolvers, silence, (int) validFrames, convolved);
+        }
+        convolved.put(END_OF_STREAM);
+        return emitted;
+    }
+
+    private int emit(StreamingConvolver[] convolvers, double[][] input, int validFrames,
+                     BlockingQueue<Block> convolved) throws InterruptedException {
+        double[][] output = new double[convolvers.length][];
+        for (int c = 0; c < convolvers.length; c++) {
+            output[c] = convolvers[c].process(input[c]);
+        }
+        convolved.put(new Block(output, validFrames));
+        return validFrames;
+    }
+
+    private Callable<Long> encode(AudioFormat inputFormat, long outputFrames, BlockingQueue<Block> convolved,
+                                  Path outputPath) {
+        AudioFormat outputFormat = new AudioFormat(inputFormat.getSampleRate(), OUTPUT_BIT_DEPTH,
+                inputFormat.getChannels(), true, false);
+        return () -> {
+            QueueInputStream samples = new QueueInputStream(convolved, outputFormat.getChannels());
+            try (AudioInputStream output = new AudioInputStream(samples, outputFormat, outputFrames)) {
+                AudioSystem.write(output, AudioFileFormat.Type.WAVE, outputPath.toFile());
+            }
+            return samples.framesRead();
+        };
+    }
+
+    private record Block(double[][] channels, int frames) {
+    }
+
+    /**
+     * Serves convolved blocks to {@link AudioSystem#write} as 16-bit PCM bytes, blocking while the queue is empty.
+     */
+    private final class QueueInputStream extends InputStream {
+        private final BlockingQueue<Block> convolved;
+        private final int channelCount;
+        private byte[] pending = new byte[0];
+        private int position;
+        private boolean finished;
+        private long framesRead;
+
+        private QueueInputStream(BlockingQueue<Block> convolved, int channelCount) {
+            this.convolved = convolved;
+            this.channelCount = channelCount;
+        }
+
+        long framesRead() {
+            return framesRead;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (position == pending.length) {
+                if (finished || !nextBlock()) {
+                    return -1;
+                }
+            }
+            int count = Math.min(length, pending.length - position);
+            System.arraycopy(pending, position, bytes, offset, count);
+            position += count;
+            return count;
+        }
+
+        private boolean nextBlock() throws IOException {
+            Block block;
+            try {
+                block = convolved.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for convolved audio");
+            }
+            if (block == END_OF_STREAM) {
+                finished = true;
+                return false;
+            }
+            double[][] frames = new double[channelCount][];
+            for (int c = 0; c < channelCount; c++) {
+                frames[c] = Arrays.copyOf(block.channels()[c], block.frames());
+            }
+            pending = writer.convertToByteArray(frames, OUTPUT_BIT_DEPTH);
+            position = 0;
+            framesRead += block.frames();
+            return true;
+        }
+    }
+}
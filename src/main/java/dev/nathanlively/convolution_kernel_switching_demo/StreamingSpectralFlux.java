@@ -0,0 +1,120 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import java.util.Arrays;
+
+/**
+ * Incremental version of {@link SpectralFluxCalculator}. Samples go into a ring buffer and a flux value is
+ * emitted every hop once a full window has been seen. {@link #normalizedAverageFlux()} averages the most recent
+ * flux values over the same 2048-sample context the pop predictor uses. Nothing is allocated after construction.
+ */
+public class StreamingSpectralFlux {
+    private static final int WINDOW_SIZE = SpectralFluxCalculator.WINDOW_SIZE;
+    private static final int HOP_SIZE = SpectralFluxCalculator.HOP_SIZE;
+    private static final int HISTORY_SIZE = 2 * SpectralFeatureTrack.FLUX_CONTEXT_FRAMES;
+
+    private final double[] window = SignalTransformer.createHannWindow(WINDOW_SIZE);
+    private final InPlaceFft fft = new InPlaceFft(WINDOW_SIZE);
+    private final double[] ringBuffer = new double[WINDOW_SIZE];
+    private final double[] frameReal = new double[WINDOW_SIZE];
+    private final double[] frameImag = new double[WINDOW_SIZE];
+    private double[] magnitudes = new double[WINDOW_SIZE / 2];
+    private double[] previousMagnitudes = new double[WINDOW_SIZE / 2];
+    private final double[] fluxHistory = new double[HISTORY_SIZE];
+
+    private int writePosition;
+    private long samplesSeen;
+    private long framesAnalyzed;
+    private int historyCount;
+    private int historyPosition;
+    private double latestFlux;
+
+    /**
+     * @return {@code true} when this sample completed a hop and a new flux value was emitted
+     */
+    public boolean push(double sample) {
+        ringBuffer[writePosition] = sample;
+        writePosition = (writePosition + 1) % WINDOW_SIZE;
+        samplesSeen++;
+
+        if (samplesSeen < WINDOW_SIZE || (samplesSeen - WINDOW_SIZE) % HOP_SIZE != 0) {
+            return false;
+        }
+        return analyzeFrame();
+    }
+
+    public void push(double[] samples, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            push(samples[i]);
+        }
+    }
+
+    public long samplesSeen() {
+        return samplesSeen;
+    }
+
+    public double latestFlux() {
+        return latestFlux;
+    }
+
+    public double normalizedAverageFlux() {
+        if (historyCount == 0) {
+            return 0.0;
+        }
+        double totalFlux = 0.0;
+        for (int i = 0; i < historyCount; i++) {
+            totalFlux += fluxHistory[i];
+        }
+        double rawFlux = totalFlux / historyCount;
+        return Math.min(1.0, rawFlux / SpectralFluxCalculator.NORMALIZATION_FACTOR);
+    }
+
+    public void reset() {
+        Arrays.fill(ringBuffer, 0.0);
+        Arrays.fill(fluxHistory, 0.0);
+        writePosition = 0;
+        samplesSeen = 0;
+        framesAnalyzed = 0;
+        historyCount = 0;
+        historyPosition = 0;
+        latestFlux = 0.0;
+    }
+
+    private boolean analyzeFrame() {
+        // writePosition now points at the oldest sample in the ring
+        for (int i = 0; i < WINDOW_SIZE; i++) {
+            frameReal[i] = ringBuffer[(writePosition + i) % WINDOW_SIZE] * window[i];
+            frameImag[i] = 0.0;
+        }
+        fft.forward(frameReal, frameImag);
+        for (int i = 0; i < magnitudes.length; i++) {
+            magnitudes[i] = Math.sqrt(frameReal[i] * frameReal[i] + frameImag[i] * frameImag[i]);
+        }
+
+        boolean emitted = framesAnalyzed > 0;
+        if (emitted) {
+            double frameFlux = 0.0;
+            for (int i = 0; i < magnitudes.length; i++) {
+                double diff = magnitudes[i] - previousMagnitudes[i];
+                if (diff > 0) {
+                    frameFlux += diff * diff;
+                }
+            }
+            latestFlux = Math.sqrt(frameFlux);
+            recordFlux(latestFlux);
+        }
+        framesAnalyzed++;
+
+        double[] swap = previousMagnitudes;
+        previousMagnitudes = magnitudes;
+        magnitudes = swap;
+        return emitted;
+    }
+
+    private void recordFlux(double flux) {
+        if (historyCount < HISTORY_SIZE) {
+            historyCount++;
+        }
+        fluxHistory[historyPosition] = flux;
+        historyPosition = (historyPosition + 1) % HISTORY_SIZE;
+    }
+}
@@ -0,0 +1,25 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+/**
+ * Decides how long {@link OverlapSaveAdapter} crossfades from the previous kernel's output to the next one's when the
+ * kernel changes. Zero means a hard cut; lengths longer than the switching block are clamped to it.
+ */
+@FunctionalInterface
+public interface SwitchCrossfade {
+
+    int fadeLength(double[] signal, double[] previousKernel, double[] nextKernel, int switchIndex);
+
+    static SwitchCrossfade none() {
+        return (signal, previousKernel, nextKernel, switchIndex) -> 0;
+    }
+
+    /**
+     * Crossfades every switch over the same number of samples.
+     */
+    static SwitchCrossfade fixed(int fadeSamples) {
+        if (fadeSamples < 0) {
+            throw new IllegalArgumentException("fadeSamples cannot be negative");
+        }
+        return (signal, previousKernel, nextKernel, switchIndex) -> fadeSamples;
+    }
+}
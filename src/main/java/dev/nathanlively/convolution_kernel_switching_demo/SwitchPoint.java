@@ -0,0 +1,9 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+public record SwitchPoint(int sampleIndex, PerceptualImpact impact) {
+    public SwitchPoint {
+        if (sampleIndex < 0) {
+            throw new IllegalArgumentException("sample index cannot be negative");
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Per-hop {@link PerceptualImpact} of switching from one kernel to another anywhere in a signal. Hop {@code k}
+ * covers the samples whose nearest STFT frame is {@code k}, i.e. {@code [k * hopSize - hopSize / 2, k * hopSize +
+ * hopSize / 2)}, and stores the worst ratio within it.
+ */
+public final class SwitchSafetyMap {
+    private static final int HOPS_PER_SEGMENT = 1024;
+    // Below this many taps a direct correlation beats transforming every segment
+    private static final int DIRECT_CORRELATION_TAPS = 64;
+
+    private final int hopSize;
+    private final int signalLength;
+    private final float[] ratios;
+
+    private SwitchSafetyMap(int hopSize, int signalLength, float[] ratios) {
+        this.hopSize = hopSize;
+        this.signalLength = signalLength;
+        this.ratios = ratios;
+    }
+
+    static SwitchSafetyMap analyze(KernelSwitchPopPredictor predictor, double[] signal,
+                                   double[] currentKernel, double[] candidateKernel) {
+        SignalTransformer.validate(signal, currentKernel);
+        SignalTransformer.validate(signal, candidateKernel);
+
+        int hopSize = SpectralFeatureTrack.HOP_SIZE;
+        int hopCount = SpectralFeatureTrack.nearestFrame(signal.length - 1) + 1;
+        float[] ratios = new float[hopCount];
+        DifferenceKernel difference = DifferenceKernel.of(currentKernel, candidateKernel);
+
+        int segmentCount = (hopCount + HOPS_PER_SEGMENT - 1) / HOPS_PER_SEGMENT;
+        IntStream.range(0, segmentCount).parallel().forEach(segment -> {
+            int firstHop = segment * HOPS_PER_SEGMENT;
+            int endHop = Math.min(hopCount, firstHop + HOPS_PER_SEGMENT);
+            mapSegment(predictor, signal, difference, firstHop, endHop, ratios);
+        });
+
+        return new SwitchSafetyMap(hopSize, signal.length, ratios);
+    }
+
+    private static void mapSegment(KernelSwitchPopPredictor predictor, double[] signal, DifferenceKernel difference,
+                                   int firstHop, int endHop, float[] ratios) {
+        int hopSize = SpectralFeatureTrack.HOP_SIZE;
+        int from = Math.max(0, firstHop * hopSize - hopSize / 2);
+        int to = Math.min(signal.length, endHop * hopSize - hopSize / 2);
+        double[] discontinuities = difference.discontinuities(signal, from, to);
+        SpectralFeatureTrack track = SpectralFeatureTrack.analyze(signal, from, to - 1, predictor.model());
+
+        for (int hop = firstHop; hop < endHop; hop++) {
+            int hopStart = Math.max(from, hop * hopSize - hopSize / 2);
+            int hopEnd = Math.min(to, hop * hopSize + hopSize / 2);
+            double worst = 0.0;
+            for (int index = hopStart; index < hopEnd; index++) {
+                worst = Math.max(worst, discontinuities[index - from]);
+            }
+            ratios[hop] = (float) (worst / predictor.effectiveThreshold(track, hopStart));
+        }
+    }
+
+    public int hopSize() {
+        return hopSize;
+    }
+
+    public int hopCount() {
+        return ratios.length;
+    }
+
+    public PerceptualImpact impactAt(int sampleIndex) {
+        if (sampleIndex < 0 || sampleIndex >= signalLength) {
+            throw new IllegalArgumentException("sample index must be within the signal");
+        }
+        return new PerceptualImpact(ratios[SpectralFeatureTrack.nearestFrame(sampleIndex)]);
+    }
+
+    public float[] ratios() {
+        return ratios.clone();
+    }
+
+    /**
+     * Run-length encoding of the hops where the switch is predicted to be inaudible.
+     */
+    public List<SampleRange> inaudibleRanges() {
+        List<SampleRange> ranges = new ArrayList<>();
+        int runStart = -1;
+        for (int hop = 0; hop <= ratios.length; hop++) {
+            boolean inaudible = hop < ratios.length && ratios[hop] < 1.0f;
+            if (inaudible && runStart < 0) {
+                runStart = hop;
+            } else if (!inaudible && runStart >= 0) {
+                int start = Math.max(0, runStart * hopSize - hopSize / 2);
+                int end = Math.min(signalLength, hop * hopSize - hopSize / 2);
+                ranges.add(new SampleRange(start, end));
+                runStart = -1;
+            }
+        }
+        return ranges;
+    }
+
+    public record SampleRange(int start, int end) {
+        public int length() {
+            return end - start;
+        }
+    }
+
+    /**
+     * Candidate minus current kernel, aligned the way the predictor centers each kernel on the switch index, so
+     * one correlation gives the raw discontinuity at every sample.
+     */
+    private record DifferenceKernel(double[] coefficients, int firstOffset) {
+        static DifferenceKernel of(double[] currentKernel, double[] candidateKernel) {
+            int firstOffset = Math.min(-(currentKernel.length / 2), -(candidateKernel.length / 2));
+            int lastOffset = Math.max(currentKernel.length - 1 - currentKernel.length / 2,
+                    candidateKernel.length - 1 - candidateKernel.length / 2);
+            double[] coefficients = new double[lastOffset - firstOffset + 1];
+            for (int i = 0; i < candidateKernel.length; i++) {
+                coefficients[i - candidateKernel.length / 2 - firstOffset] += candidateKernel[i];
+            }
+            for (int i = 0; i < currentKernel.length; i++) {
+                coefficients[i - currentKernel.length / 2 - firstOffset] -= currentKernel[i];
+            }
+            return new DifferenceKernel(coefficients, firstOffset);
+        }
+
+        double[] discontinuities(double[] signal, int from, int to) {
+            int length = coefficients.length;
+            if (length <= DIRECT_CORRELATION_TAPS) {
+                return directDiscontinuities(signal, from, to);
+            }
+            int base = from + firstOffset;
+            double[] slice = new double[to - from + length - 1];
+            for (int i = 0; i < slice.length; i++) {
+                int signalIndex = base + i;
+                if (signalIndex >= 0 && signalIndex < signal.length) {
+                    slice[i] = signal[signalIndex];
+                }
+            }
+
+            // Correlation is convolution with the reversed kernel
+            double[] reversed = new double[length];
+            for (int i = 0; i < length; i++) {
+                reversed[i] = coefficients[length - 1 - i];
+            }
+            double[] correlation = new OverlapSaveAdapter().with(slice, reversed);
+
+            double[] discontinuities = new double[to - from];
+            for (int i = 0; i < discontinuities.length; i++) {
+                discontinuities[i] = Math.abs(correlation[i + length - 1]);
+            }
+            return discontinuities;
+        }
+
+        private double[] directDiscontinuities(double[] signal, int from, int to) {
+            double[] discontinuities = new double[to - from];
+            for (int index = from; index < to; index++) {
+                double sum = 0.0;
+                for (int i = 0; i < coefficients.length; i++) {
+                    int signalIndex = index + firstOffset + i;
+                    if (signalIndex >= 0 && signalIndex < signal.length) {
+                        sum += signal[signalIndex] * coefficients[i];
+                    }
+                }
+                discontinuities[index - from] = Math.abs(sum);
+            }
+            return discontinuities;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Front end for {@link KernelSwitchPopPredictor} that skips the spectral pipeline when the raw discontinuity alone
+ * settles the verdict. The effective threshold is a Bark threshold times a masking factor, so it always lies between
+ * the lowest bin threshold times {@link KernelSwitchPopPredictor#MIN_MASKING_FACTOR} and the highest times
+ * {@link KernelSwitchPopPredictor#MAX_MASKING_FACTOR}. A discontinuity below that range is inaudible and one above it
+ * is audible whatever the spectrum looks like.
+ * <p>
+ * For decided switches the returned ratio is the bound that decided it (an upper bound when inaudible, a lower bound
+ * when audible), so {@link PerceptualImpact#isAudible()} always agrees with the full prediction but
+ * {@link PerceptualImpact#level()} may be more cautious. Counters are safe to read from any thread.
+ */
+public class TieredAudibilityEvaluator {
+    private final KernelSwitchPopPredictor predictor;
+    private final double minEffectiveThreshold;
+    private final double maxEffectiveThreshold;
+    private final LongAdder[] decisions = new LongAdder[Tier.values().length];
+
+    public TieredAudibilityEvaluator(int sampleRate) {
+        this(new KernelSwitchPopPredictor(sampleRate));
+    }
+
+    public TieredAudibilityEvaluator(KernelSwitchPopPredictor predictor) {
+        this.predictor = predictor;
+        PerceptualModel model = predictor.model();
+        this.minEffectiveThreshold = model.minThreshold() * KernelSwitchPopPredictor.MIN_MASKING_FACTOR;
+        this.maxEffectiveThreshold = model.maxThreshold() * KernelSwitchPopPredictor.MAX_MASKING_FACTOR;
+        Arrays.setAll(decisions, tier -> new LongAdder());
+    }
+
+    public PerceptualImpact predictAudibility(double[] signal, double[] currentKernel,
+                                              double[] candidateKernel, int switchIndex) {
+        double rawDiscontinuity = predictor.rawDiscontinuity(signal, currentKernel, candidateKernel, switchIndex);
+        if (rawDiscontinuity < minEffectiveThreshold) {
+            decisions[Tier.BELOW_ALL_THRESHOLDS.ordinal()].increment();
+            return new PerceptualImpact(rawDiscontinuity / minEffectiveThreshold);
+        }
+        if (rawDiscontinuity >= maxEffectiveThreshold) {
+            decisions[Tier.ABOVE_ALL_THRESHOLDS.ordinal()].increment();
+            return new PerceptualImpact(rawDiscontinuity / maxEffectiveThreshold);
+        }
+        decisions[Tier.SPECTRAL_ANALYSIS.ordinal()].increment();
+        return predictor.predictAudibility(signal, currentKernel, candidateKernel, switchIndex);
+    }
+
+    public long decisions(Tier tier) {
+        return decisions[tier.ordinal()].sum();
+    }
+
+    public void resetCounters() {
+        Arrays.stream(decisions).forEach(LongAdder::reset);
+    }
+
+    public enum Tier {
+        BELOW_ALL_THRESHOLDS,
+        ABOVE_ALL_THRESHOLDS,
+        SPECTRAL_ANALYSIS
+    }
+}
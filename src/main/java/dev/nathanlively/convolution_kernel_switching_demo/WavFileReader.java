@@ -75,7 +75,7 @@ public class WavFileReader {
         return new MultiChannelWavFile(sampleRate, channels);
     }
 
-    private void convertBytesToSamples(byte[] buffer, int bytesRead, double[][] channels,
+    void convertBytesToSamples(byte[] buffer, int bytesRead, double[][] channels,
                                        int startSample, int channelCount, int bitDepth) {
         int bytesPerSample = bitDepth / 8;
         int frameSize = bytesPerSample * channelCount;
@@ -52,7 +52,7 @@ public class WavFileWriter {
         saveToFile(sampleRate, channels, outputPath);
     }
 
-    private byte[] convertToByteArray(double[][] channels, int bitDepth) {
+    byte[] convertToByteArray(double[][] channels, int bitDepth) {
         int channelCount = channels.length;
         int sampleCount = channels.length > 0 ? channels[0].length : 0;
         int bytesPerSample = bitDepth / 8;
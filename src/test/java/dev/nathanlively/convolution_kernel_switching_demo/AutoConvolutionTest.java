@@ -0,0 +1,59 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class AutoConvolutionTest {
+
+    @Test
+    void givenLongKernelAndShortPeriod_whenSelecting_thenPicksOverlapAdd() {
+        AutoConvolution.Engine engine = AutoConvolution.select(44100, 65536, 2, 4410);
+
+        assertThat(engine).isEqualTo(AutoConvolution.Engine.OVERLAP_ADD);
+    }
+
+    @Test
+    void givenShortKernelWithoutSwitching_whenSelecting_thenPicksOverlapSave() {
+        AutoConvolution.Engine engine = AutoConvolution.select(441000, 512, 1, Integer.MAX_VALUE);
+
+        assertThat(engine).isEqualTo(AutoConvolution.Engine.OVERLAP_SAVE);
+    }
+
+    @Test
+    void givenSelectedEngine_whenConvolving_thenMatchesThatEngine() {
+        double[] signal = new Random(41).doubles(8000, -1, 1).toArray();
+        List<double[]> kernels = List.of(
+                new Random(43).doubles(4096, -1, 1).toArray(),
+                new Random(47).doubles(4096, -1, 1).toArray());
+        int periodSamples = 500;
+        assertThat(AutoConvolution.select(signal.length, 4096, 2, periodSamples))
+                .isEqualTo(AutoConvolution.Engine.OVERLAP_ADD);
+
+        double[] actual = new AutoConvolution().with(signal, kernels, periodSamples);
+
+        assertThat(actual).containsExactly(new OverlapAddAdapter().with(signal, kernels, periodSamples), within(1e-12));
+    }
+
+    @Test
+    void givenSingleKernel_whenConvolving_thenMatchesOverlapSave() {
+        double[] signal = new Random(53).doubles(3000, -1, 1).toArray();
+        double[] kernel = new Random(59).doubles(64, -1, 1).toArray();
+
+        double[] actual = new AutoConvolution().with(signal, kernel);
+
+        assertThat(actual).containsExactly(new OverlapSaveAdapter().with(signal, kernel), within(1e-9));
+    }
+
+    @Test
+    void givenNonPositivePeriod_whenEstimatingCost_thenThrowsException() {
+        assertThatThrownBy(() -> AutoConvolution.estimatedCost(AutoConvolution.Engine.OVERLAP_ADD, 100, 10, 1, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("period must be positive");
+    }
+}
@@ -0,0 +1,61 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.apache.commons.math4.legacy.exception.NoDataException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class BatchConvolutionTest {
+    private final BatchConvolution batch = new BatchConvolution();
+    private final Convolution convolution = new OverlapSaveAdapter();
+
+    @Test
+    void givenManyClipsAndKernels_whenConvolvingAll_thenEachMatchesItsOwnConvolution() {
+        Random random = new Random(109);
+        double[] click = random.doubles(64, -1, 1).toArray();
+        double[] room = random.doubles(900, -1, 1).toArray();
+        List<BatchConvolution.Job> jobs = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            double[] clip = random.doubles(1 + random.nextInt(3000), -1, 1).toArray();
+            jobs.add(new BatchConvolution.Job(clip, i % 3 == 0 ? click : room));
+        }
+
+        List<double[]> actual = batch.withAll(jobs);
+
+        assertThat(actual).hasSize(jobs.size());
+        for (int i = 0; i < jobs.size(); i++) {
+            BatchConvolution.Job job = jobs.get(i);
+            assertThat(actual.get(i)).as("job %d", i)
+                    .containsExactly(convolution.with(job.signal(), job.kernel()), within(1e-9));
+        }
+    }
+
+    @Test
+    void givenClipLongerThanABatch_whenConvolvingAll_thenMatchesOverlapSave() {
+        double[] kernel = new Random(113).doubles(500, -1, 1).toArray();
+        double[] longClip = new Random(127).doubles(100000, -1, 1).toArray();
+        double[] shortClip = new Random(131).doubles(10, -1, 1).toArray();
+
+        List<double[]> actual = batch.withAll(List.of(longClip, shortClip), kernel);
+
+        assertThat(actual.get(0)).containsExactly(convolution.with(longClip, kernel), within(1e-9));
+        assertThat(actual.get(1)).containsExactly(convolution.with(shortClip, kernel), within(1e-9));
+    }
+
+    @Test
+    void givenNoJobs_whenConvolvingAll_thenReturnsEmptyList() {
+        assertThat(batch.withAll(List.of())).isEmpty();
+    }
+
+    @Test
+    void givenEmptyClip_whenCreatingJob_thenThrowsException() {
+        assertThatThrownBy(() -> new BatchConvolution.Job(new double[0], new double[]{1.0}))
+                .isInstanceOf(NoDataException.class);
+    }
+}
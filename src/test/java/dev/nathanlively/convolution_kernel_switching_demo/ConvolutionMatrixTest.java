@@ -0,0 +1,56 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class ConvolutionMatrixTest {
+
+    @Test
+    void givenTwoInputsAndThreeOutputs_whenConvolving_thenEachOutputSumsItsFilteredInputs() {
+        Random random = new Random(31);
+        double[][] inputs = {random.doubles(3000, -1, 1).toArray(), random.doubles(2500, -1, 1).toArray()};
+        int[][] kernelLengths = {{64, 1, 200}, {128, 33, 7}};
+        double[][][] kernels = new double[2][3][];
+        for (int i = 0; i < 2; i++) {
+            for (int j = 0; j < 3; j++) {
+                kernels[i][j] = random.doubles(kernelLengths[i][j], -1, 1).toArray();
+            }
+        }
+
+        double[][] outputs = new ConvolutionMatrix(kernels).with(inputs);
+
+        Convolution convolution = new OverlapSaveAdapter();
+        assertThat(outputs).hasSize(3);
+        for (int j = 0; j < 3; j++) {
+            double[] expected = new double[3000 + 200 - 1];
+            for (int i = 0; i < 2; i++) {
+                double[] path = convolution.with(inputs[i], kernels[i][j]);
+                for (int n = 0; n < path.length; n++) {
+                    expected[n] += path[n];
+                }
+            }
+            assertThat(outputs[j]).as("output %d", j).containsExactly(expected, within(1e-12));
+        }
+    }
+
+    @Test
+    void givenWrongNumberOfInputs_whenConvolving_thenThrowsException() {
+        ConvolutionMatrix matrix = new ConvolutionMatrix(new double[][][]{{{1.0}, {0.5}}});
+
+        assertThatThrownBy(() -> matrix.with(new double[][]{{1.0}, {2.0}}))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("inputs");
+    }
+
+    @Test
+    void givenRaggedKernelMatrix_whenCreating_thenThrowsException() {
+        assertThatThrownBy(() -> new ConvolutionMatrix(new double[][][]{{{1.0}, {0.5}}, {{1.0}}}))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("one kernel per output");
+    }
+}
@@ -0,0 +1,81 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class ConvolutionPlannerTest {
+    private final ConvolutionPlanner planner = new ConvolutionPlanner(ConvolutionPlanner.CostModel.nominal());
+
+    @Test
+    void givenShortKernel_whenPlanning_thenRunsDirectly() {
+        ConvolutionPlan plan = planner.plan(5.0, 48000, 32);
+
+        assertThat(plan.engine()).isEqualTo(ConvolutionPlan.Engine.DIRECT);
+    }
+
+    @Test
+    void givenLongKernelAndTightBudget_whenPlanning_thenUsesNonUniformPartitions() {
+        ConvolutionPlan plan = planner.plan(5.0, 48000, 96000);
+
+        assertThat(plan.engine()).isEqualTo(ConvolutionPlan.Engine.NON_UNIFORM_PARTITIONED);
+        assertThat(plan.latencyMillis()).isLessThanOrEqualTo(5.0);
+        assertThat(plan.tailBlockSize()).isGreaterThan(plan.blockSize());
+        assertThat(plan.cpuLoad()).isLessThan(planner.candidates(5.0, 48000, 96000, Integer.MAX_VALUE).stream()
+                .filter(candidate -> candidate.engine() == ConvolutionPlan.Engine.UNIFORM_PARTITIONED)
+                .mapToDouble(ConvolutionPlan::cpuLoad)
+                .min().orElseThrow());
+    }
+
+    @Test
+    void givenEveryCandidate_whenPlanning_thenAllFitTheLatencyBudget() {
+        for (ConvolutionPlan plan : planner.candidates(10.0, 44100, 20000, Integer.MAX_VALUE)) {
+            assertThat(plan.latencyMillis()).as(plan.toString()).isLessThanOrEqualTo(10.0);
+        }
+    }
+
+    @Test
+    void givenFrequentSwitching_whenPlanning_thenCostIncludesKernelPreparation() {
+        ConvolutionPlan steady = planner.plan(20.0, 48000, 48000);
+        ConvolutionPlan switching = planner.plan(20.0, 48000, 48000, 256);
+
+        assertThat(switching.cpuLoad()).isGreaterThan(steady.cpuLoad());
+    }
+
+    @Test
+    void givenAnyPlannedEngine_whenProcessing_thenMatchesOverlapSave() {
+        double[] kernel = new Random(83).doubles(700, -1, 1).toArray();
+        double[] signal = new Random(89).doubles(64 * 40, -1, 1).toArray();
+        double[] expected = Arrays.copyOf(new OverlapSaveAdapter().with(signal, kernel), signal.length);
+
+        for (ConvolutionPlan plan : planner.candidates(64 / 48.0, 48000, kernel.length, Integer.MAX_VALUE)) {
+            BlockConvolver convolver = plan.create(kernel);
+            double[] actual = new double[signal.length];
+            for (int start = 0; start < signal.length; start += plan.blockSize()) {
+                double[] block = convolver.process(Arrays.copyOfRange(signal, start, start + plan.blockSize()));
+                System.arraycopy(block, 0, actual, start, plan.blockSize());
+            }
+            assertThat(actual).as(plan.toString()).containsExactly(expected, within(1e-9));
+        }
+    }
+
+    @Test
+    void givenCalibratedModel_whenMeasuring_thenCostsArePositive() {
+        ConvolutionPlanner.CostModel model = ConvolutionPlanner.calibrated().costModel();
+
+        assertThat(model.nanosPerButterfly()).isGreaterThan(0.0);
+        assertThat(model.nanosPerMultiplyAdd()).isGreaterThan(0.0);
+    }
+
+    @Test
+    void givenBudgetBelowOneSample_whenPlanning_thenThrowsException() {
+        assertThatThrownBy(() -> planner.plan(0.01, 48000, 1000))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("latency budget is shorter than one sample");
+    }
+}
@@ -0,0 +1,148 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ConvolutionProcessorTest {
+    private static final int blockSize = 128;
+
+    @Test
+    void givenPublishedBlocks_whenRequestingOneAtATime_thenOutputMatchesOverlapSaveAdapter() throws Exception {
+        Random random = new Random(53);
+        double[] signal = random.doubles(20 * blockSize, -1, 1).toArray();
+        double[] kernel = random.doubles(300, -0.1, 0.1).toArray();
+        ConvolutionProcessor processor = new ConvolutionProcessor(kernel, blockSize);
+        CollectingSubscriber subscriber = new CollectingSubscriber(1);
+        processor.subscribe(subscriber);
+
+        try (SubmissionPublisher<double[]> publisher = new SubmissionPublisher<>()) {
+            publisher.subscribe(processor);
+            for (int start = 0; start < signal.length; start += blockSize) {
+                publisher.submit(Arrays.copyOfRange(signal, start, start + blockSize));
+            }
+        }
+
+        double[] expected = new OverlapSaveAdapter().with(signal, kernel);
+        assertThat(subscriber.result().get(10, TimeUnit.SECONDS)).containsExactly(expected, within(1e-12));
+    }
+
+    @Test
+    void givenLimitedDemand_whenUpstreamHasMore_thenOnlyRequestedBlocksFlow() {
+        ConvolutionProcessor processor = new ConvolutionProcessor(new double[]{1.0, 0.5}, blockSize);
+        CollectingSubscriber subscriber = new CollectingSubscriber(0);
+        processor.subscribe(subscriber);
+        CountingSubscription upstream = new CountingSubscription();
+        processor.onSubscribe(upstream);
+
+        subscriber.subscription().request(3);
+
+        assertThat(upstream.requested).isEqualTo(3);
+        for (int i = 0; i < 3; i++) {
+            processor.onNext(new double[blockSize]);
+        }
+        assertThat(subscriber.blocks).hasSize(3);
+    }
+
+    @Test
+    void givenKernelSwitch_whenStreaming_thenNextBlocksUseNewKernel() throws Exception {
+        double[] signal = new Random(59).doubles(4 * blockSize, -1, 1).toArray();
+        ConvolutionProcessor processor = new ConvolutionProcessor(new double[]{1.0, 0.0}, blockSize);
+        CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        processor.subscribe(subscriber);
+        processor.onSubscribe(new CountingSubscription());
+
+        processor.switchKernel(new double[]{0.0, 2.0});
+        for (int start = 0; start < signal.length; start += blockSize) {
+            processor.onNext(Arrays.copyOfRange(signal, start, start + blockSize));
+        }
+        processor.onComplete();
+
+        double[] expected = new OverlapSaveAdapter().with(signal, new double[]{0.0, 2.0});
+        assertThat(subscriber.result().get(1, TimeUnit.SECONDS)).containsExactly(expected, within(1e-12));
+    }
+
+    @Test
+    void givenWrongBlockLength_whenReceived_thenCancelsUpstreamAndSignalsError() {
+        ConvolutionProcessor processor = new ConvolutionProcessor(new double[]{1.0}, blockSize);
+        CollectingSubscriber subscriber = new CollectingSubscriber(1);
+        processor.subscribe(subscriber);
+        CountingSubscription upstream = new CountingSubscription();
+        processor.onSubscribe(upstream);
+
+        processor.onNext(new double[blockSize - 1]);
+
+        assertThat(upstream.cancelled).isTrue();
+        assertThat(subscriber.result().isCompletedExceptionally()).isTrue();
+    }
+
+    private static final class CountingSubscription implements Flow.Subscription {
+        long requested;
+        boolean cancelled;
+
+        @Override
+        public void request(long n) {
+            requested += n;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private static final class CollectingSubscriber implements Flow.Subscriber<double[]> {
+        private final long batch;
+        private final List<double[]> blocks = new ArrayList<>();
+        private final CompletableFuture<double[]> result = new CompletableFuture<>();
+        private Flow.Subscription subscription = new CountingSubscription();
+
+        private CollectingSubscriber(long batch) {
+            this.batch = batch;
+        }
+
+        Flow.Subscription subscription() {
+            return subscription;
+        }
+
+        CompletableFuture<double[]> result() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (batch > 0) {
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onNext(double[] block) {
+            blocks.add(block);
+            if (batch == 1) {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(blocks.stream().flatMapToDouble(Arrays::stream).toArray());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class DirectConvolverTest {
+
+    @Test
+    void givenBlocks_whenProcessing_thenMatchesOverlapSave() {
+        double[] kernel = new Random(103).doubles(40, -1, 1).toArray();
+        double[] signal = new Random(107).doubles(30 * 17, -1, 1).toArray();
+        DirectConvolver convolver = new DirectConvolver(kernel, 17);
+
+        double[] actual = new double[signal.length];
+        for (int start = 0; start < signal.length; start += 17) {
+            System.arraycopy(convolver.process(Arrays.copyOfRange(signal, start, start + 17)), 0, actual, start, 17);
+        }
+
+        double[] expected = new OverlapSaveAdapter().with(signal, kernel);
+        assertThat(actual).containsExactly(Arrays.copyOf(expected, signal.length), within(1e-9));
+    }
+
+    @Test
+    void givenWrongBlockLength_whenProcessing_thenThrowsException() {
+        DirectConvolver convolver = new DirectConvolver(new double[]{1.0}, 4);
+
+        assertThatThrownBy(() -> convolver.process(new double[3]))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("block length must equal blockSize");
+    }
+}
@@ -0,0 +1,88 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+class EnergyRatioTransientDetectorTest {
+
+    @Test
+    void givenSteadySine_whenStreaming_thenScoreStaysNearOneAndNothingIsDetected() {
+        double[] sine = AudioSignals.generateSineWave(440, 2.0, 44100);
+        EnergyRatioTransientDetector detector = new EnergyRatioTransientDetector();
+
+        detector.push(sine, 0, sine.length);
+
+        assertThat(detector.detectionCount()).isZero();
+        assertThat(detector.latestScore()).isCloseTo(1.0, offset(0.2));
+    }
+
+    @Test
+    void givenSilence_whenStreaming_thenNothingIsDetected() {
+        EnergyRatioTransientDetector detector = new EnergyRatioTransientDetector();
+
+        detector.push(new double[44100], 0, 44100);
+
+        assertThat(detector.detectionCount()).isZero();
+        assertThat(detector.latestScore()).isZero();
+    }
+
+    @Test
+    void givenClickInQuietSine_whenStreaming_thenDetectsItWithinTenMilliseconds() {
+        double[] signal = AudioSignals.generateSineWave(440, 1.0, 44100);
+        for (int i = 0; i < signal.length; i++) {
+            signal[i] *= 0.05;
+        }
+        int clickIndex = 30_000;
+        signal[clickIndex] += 0.5;
+        EnergyRatioTransientDetector detector = new EnergyRatioTransientDetector();
+
+        long detectedAt = -1;
+        for (int i = 0; i < signal.length; i++) {
+            if (detector.push(signal[i])) {
+                detectedAt = i;
+            }
+        }
+
+        assertThat(detector.detectionCount()).isEqualTo(1);
+        assertThat(detectedAt - clickIndex).isBetween(0.0, 441.0);
+        assertThat(detector.detections()[0]).isBetween(clickIndex - 15.0, (double) clickIndex);
+    }
+
+    @Test
+    void givenNoise_whenStreaming_thenScoreMatchesDirectEnergyRatio() {
+        Random random = new Random(5);
+        double[] noise = new double[10_000];
+        for (int i = 0; i < noise.length; i++) {
+            noise[i] = random.nextGaussian();
+        }
+        EnergyRatioTransientDetector detector = new EnergyRatioTransientDetector(64, 8, 32, 100.0);
+
+        detector.push(noise, 0, noise.length);
+
+        int end = noise.length;
+        double after = meanEnergy(noise, end - 32, end);
+        double during = meanEnergy(noise, end - 40, end - 32);
+        double before = meanEnergy(noise, end - 104, end - 40);
+        assertThat(detector.latestScore()).isCloseTo(2.0 * during / (before + after), offset(1e-9));
+    }
+
+    @Test
+    void givenNonPositiveWindow_whenCreating_thenThrowsException() {
+        assertThatThrownBy(() -> new EnergyRatioTransientDetector(128, 0, 128, 4.0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("window");
+    }
+
+    private static double meanEnergy(double[] signal, int from, int to) {
+        double sum = 0.0;
+        for (int i = from; i < to; i++) {
+            sum += signal[i] * signal[i];
+        }
+        return sum / (to - from);
+    }
+}
@@ -0,0 +1,92 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class KernelChainTest {
+    private final Convolution convolution = new OverlapSaveAdapter();
+    private final Random random = new Random(61);
+
+    @Test
+    void givenSeriesOfKernels_whenFused_thenOneConvolutionMatchesStageByStage() {
+        double[] signal = random.doubles(4000, -1, 1).toArray();
+        double[] eq = random.doubles(31, -0.5, 0.5).toArray();
+        double[] room = random.doubles(500, -0.1, 0.1).toArray();
+        double[] speaker = random.doubles(64, -0.5, 0.5).toArray();
+
+        KernelChain chain = KernelChain.of(eq).then(room).then(speaker);
+        double[] expected = convolution.with(convolution.with(convolution.with(signal, eq), room), speaker);
+
+        assertThat(chain.length()).isEqualTo(31 + 500 + 64 - 2);
+        assertThat(convolution.with(signal, chain.toKernel())).containsExactly(expected, within(1e-12));
+    }
+
+    @Test
+    void givenParallelBranches_whenFused_thenOneConvolutionMatchesSumOfBranches() {
+        double[] signal = random.doubles(2000, -1, 1).toArray();
+        double[] direct = {1.0};
+        double[] reverb = random.doubles(300, -0.1, 0.1).toArray();
+
+        KernelChain chain = KernelChain.of(direct).plus(KernelChain.of(reverb));
+        double[] wet = convolution.with(signal, reverb);
+        double[] expected = wet.clone();
+        for (int i = 0; i < signal.length; i++) {
+            expected[i] += signal[i];
+        }
+
+        assertThat(chain.length()).isEqualTo(300);
+        assertThat(convolution.with(signal, chain.toKernel())).containsExactly(expected, within(1e-12));
+    }
+
+    @Test
+    void givenPreparedChain_thenSpectrumIsSharedAndMatchesFusedKernel() {
+        KernelChain chain = KernelChain.series(
+                KernelChain.of(random.doubles(20, -1, 1).toArray()),
+                KernelChain.of(random.doubles(40, -1, 1).toArray()).plus(KernelChain.of(new double[]{0.5})));
+        int fftSize = StreamingConvolver.fftSizeFor(128, chain.length());
+
+        PreparedKernel prepared = chain.prepare(fftSize);
+        PreparedKernel direct = PreparedKernel.of(chain.toKernel(), fftSize);
+
+        assertThat(chain.prepare(fftSize)).isSameAs(prepared);
+        assertThat(prepared.kernelLength()).isEqualTo(direct.kernelLength());
+        for (int bin = 0; bin < fftSize; bin++) {
+            assertThat(prepared.transform()[bin].getReal()).isCloseTo(direct.transform()[bin].getReal(), within(1e-12));
+            assertThat(prepared.transform()[bin].getImaginary())
+                    .isCloseTo(direct.transform()[bin].getImaginary(), within(1e-12));
+        }
+    }
+
+    @Test
+    void givenChainShorterThanFftSize_whenStreaming_thenMatchesStageByStage() {
+        double[] signal = random.doubles(1024, -1, 1).toArray();
+        double[] first = random.doubles(10, -1, 1).toArray();
+        double[] second = random.doubles(10, -1, 1).toArray();
+        KernelChain chain = KernelChain.of(first).then(second);
+        StreamingConvolver convolver = new StreamingConvolver(
+                chain.prepare(StreamingConvolver.fftSizeFor(256, chain.length())), 256);
+
+        double[] actual = new double[signal.length];
+        for (int start = 0; start < signal.length; start += 256) {
+            System.arraycopy(convolver.process(Arrays.copyOfRange(signal, start, start + 256)), 0, actual, start, 256);
+        }
+
+        double[] expected = convolution.with(convolution.with(signal, first), second);
+        assertThat(actual).containsExactly(Arrays.copyOf(expected, signal.length), within(1e-12));
+    }
+
+    @Test
+    void givenFftSizeShorterThanChain_whenPreparing_thenThrowsException() {
+        KernelChain chain = KernelChain.of(new double[100]).then(new double[100]);
+
+        assertThatThrownBy(() -> chain.prepare(128))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("fftSize");
+    }
+}
@@ -0,0 +1,90 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.apache.commons.numbers.complex.Complex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KernelPreparerTest {
+    private KernelPreparer preparer;
+
+    @BeforeEach
+    void setUp() {
+        preparer = new KernelPreparer();
+    }
+
+    @AfterEach
+    void tearDown() {
+        preparer.close();
+    }
+
+    @Test
+    void givenKernel_whenPrepared_thenTransformMatchesSynchronousFft() {
+        double[] kernel = {0.5, 0.25, 0.125};
+
+        PreparedKernel prepared = preparer.prepare(kernel, 8).await();
+
+        Complex[] expected = SignalTransformer.fft(SignalTransformer.pad(kernel, 8));
+        assertThat(prepared.kernelLength()).isEqualTo(3);
+        assertThat(prepared.fftSize()).isEqualTo(8);
+        for (int i = 0; i < expected.length; i++) {
+            assertThat(prepared.transform()[i].getReal()).isEqualTo(expected[i].getReal());
+            assertThat(prepared.transform()[i].getImaginary()).isEqualTo(expected[i].getImaginary());
+        }
+    }
+
+    @Test
+    void givenKernelModifiedAfterSubmit_whenPrepared_thenUsesOriginalValues() {
+        double[] kernel = {1.0, 0.0};
+        KernelPreparation preparation = preparer.prepare(kernel, 2);
+        kernel[0] = 5.0;
+
+        PreparedKernel prepared = preparation.await();
+
+        assertThat(prepared.transform()[0].getReal()).isEqualTo(1.0);
+    }
+
+    @Test
+    void givenQueuedPreparation_whenCancelled_thenNeverBecomesReady() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        try (KernelPreparer blockedPreparer = new KernelPreparer(executor)) {
+            KernelPreparation preparation = blockedPreparer.prepare(new double[]{1.0}, 1024);
+
+            assertThat(preparation.poll()).isNull();
+            assertThat(preparation.cancel()).isTrue();
+            release.countDown();
+
+            assertThat(preparation.isCancelled()).isTrue();
+            assertThat(preparation.isReady()).isFalse();
+            assertThat(preparation.poll()).isNull();
+            assertThatThrownBy(preparation::await)
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("cancelled");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void givenFftSizeSmallerThanKernel_whenPreparing_thenThrowsImmediately() {
+        assertThatThrownBy(() -> preparer.prepare(new double[]{1, 2, 3}, 2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("fftSize");
+    }
+}
@@ -338,6 +338,47 @@ class KernelSwitchPopPredictorTest {
         assertThat(highFreqAudibility.ratio()).isLessThan(lowFreqAudibility.ratio());
     }
 
+    @Test
+    void givenHopAlignedSwitchIndices_whenPredictingInBatch_thenMatchesSinglePredictions() {
+        WavFile audioFile = audioHelper.loadFromClasspath("Lecture5sec.wav");
+        double[] signal = audioFile.signal();
+        double[] kernel1 = {1.0};
+        double[] kernel2 = {0.97};
+        Random seeded = new Random(42);
+        int[] switchIndices = new int[50];
+        for (int i = 0; i < switchIndices.length; i++) {
+            switchIndices[i] = seeded.nextInt(signal.length / SpectralFeatureTrack.HOP_SIZE) * SpectralFeatureTrack.HOP_SIZE;
+        }
+
+        PerceptualImpact[] batch = predictor.predictAudibility(signal, kernel1, kernel2, switchIndices);
+
+        assertThat(batch).hasSameSizeAs(switchIndices);
+        for (int i = 0; i < switchIndices.length; i++) {
+            PerceptualImpact single = predictor.predictAudibility(signal, kernel1, kernel2, switchIndices[i]);
+            assertThat(batch[i].ratio())
+                    .as("switch at %d", switchIndices[i])
+                    .isCloseTo(single.ratio(), offset(1e-9));
+        }
+    }
+
+    @Test
+    void givenSineAndToleranceWindow_whenFindingQuietestSwitchPoint_thenPicksZeroCrossingInsideWindow() {
+        double[] signal = AudioSignals.generateSineWave(440, 1.0, SAMPLE_RATE);
+        double[] kernel1 = {1.0};
+        double[] kernel2 = {0.9};
+        int samplesPerCycle = SAMPLE_RATE / 440;
+        int targetIndex = 10_000 + samplesPerCycle / 4;
+        int tolerance = SAMPLE_RATE / 20; // 50 ms
+
+        SwitchPoint best = predictor.findQuietestSwitchPoint(signal, kernel1, kernel2, targetIndex, tolerance);
+
+        PerceptualImpact atTarget = predictor.predictAudibility(signal, kernel1, kernel2, targetIndex);
+        assertThat(best.sampleIndex()).isBetween(targetIndex, targetIndex + tolerance);
+        assertThat(Math.abs(signal[best.sampleIndex()])).isLessThan(0.01);
+        assertThat(best.impact().ratio()).isLessThan(atTarget.ratio());
+        assertThat(best.impact().isInaudible()).isTrue();
+    }
+
     // Multiply base threshold by these factors
 //    private static final double CONTENT_MULTIPLIERS = {
 //            1.0,   // Pure tone (no adjustment)
@@ -0,0 +1,143 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+class KernelTailTrimmerTest {
+    private final KernelTailTrimmer trimmer = new KernelTailTrimmer();
+    private final AudioTestHelper audioTestHelper = new AudioTestHelper();
+
+    @Test
+    void givenDecayIntoNoise_whenTrimming_thenCutsBeforeTheNoiseFloor() {
+        // 60 dB of decay every 4410 samples, then noise 90 dB below the peak
+        Random random = new Random(3);
+        double[] kernel = new double[44100];
+        for (int n = 0; n < kernel.length; n++) {
+            double decay = Math.pow(10.0, -3.0 * n / 4410.0);
+            kernel[n] = decay * random.nextGaussian() + 3e-5 * random.nextGaussian();
+        }
+
+        KernelTailTrimmer.TrimResult result = trimmer.trim(kernel);
+
+        assertThat(result.kernel().length).isBetween(3000, 5000);
+        assertThat(result.samplesSaved()).isEqualTo(kernel.length - result.kernel().length);
+        assertThat(result.noiseFloorDb()).isCloseTo(-90.0 - 10 * Math.log10(maxSquare(kernel)), offset(2.0));
+        assertThat(result.errorDb()).isLessThanOrEqualTo(KernelTailTrimmer.DEFAULT_THRESHOLD_DB);
+    }
+
+    @Test
+    void givenTrimmedKernel_whenConvolving_thenErrorMatchesPrediction() {
+        double[] kernel = new double[8192];
+        Random random = new Random(5);
+        for (int n = 0; n < kernel.length; n++) {
+            kernel[n] = Math.exp(-n / 300.0) * random.nextGaussian();
+        }
+        double[] signal = new Random(9).doubles(20000, -1, 1).toArray();
+        KernelTailTrimmer.TrimResult result = new KernelTailTrimmer(-40.0).trim(kernel);
+
+        Convolution convolution = new OverlapSaveAdapter();
+        double[] full = convolution.with(signal, kernel);
+        double[] trimmed = convolution.with(signal, result.kernel());
+        double errorEnergy = 0.0;
+        double fullEnergy = 0.0;
+        for (int n = 0; n < full.length; n++) {
+            double difference = full[n] - (n < trimmed.length ? trimmed[n] : 0.0);
+            errorEnergy += difference * difference;
+            fullEnergy += full[n] * full[n];
+        }
+
+        assertThat(result.samplesSaved()).isGreaterThan(0);
+        assertThat(10 * Math.log10(errorEnergy / fullEnergy)).isCloseTo(result.errorDb(), offset(3.0));
+        assertThat(result.errorDb()).isLessThanOrEqualTo(-40.0);
+    }
+
+    @Test
+    void givenRoomImpulseResponse_whenTrimming_thenDropsTheNoiseTail() {
+        double[] kernel = audioTestHelper.loadFromClasspath("EchoBridge.wav").signal();
+
+        KernelTailTrimmer.TrimResult result = trimmer.trim(kernel);
+
+        assertThat(result.samplesSaved()).isGreaterThan(0);
+        assertThat(result.errorDb()).isLessThanOrEqualTo(KernelTailTrimmer.DEFAULT_THRESHOLD_DB);
+    }
+
+    @Test
+    void givenCleanDecay_whenTrimming_thenCutsAtTheThresholdOfTheRawDecay() {
+        // 60 dB of decay every 4410 samples with no noise floor
+        double[] kernel = new double[44100];
+        for (int n = 0; n < kernel.length; n++) {
+            kernel[n] = Math.pow(10.0, -3.0 * n / 4410.0);
+        }
+
+        KernelTailTrimmer.TrimResult result = trimmer.trim(kernel);
+
+        assertThat(result.noiseFloorDb()).isEqualTo(Double.NEGATIVE_INFINITY);
+        assertThat(result.kernel().length).isBetween(4300, 4500);
+        assertThat(result.errorDb()).isLessThanOrEqualTo(KernelTailTrimmer.DEFAULT_THRESHOLD_DB);
+    }
+
+    @Test
+    void givenShortFir_whenTrimming_thenDropsOnlyTapsBelowTheThreshold() {
+        double[] kernel = new double[64];
+        for (int n = 0; n < kernel.length; n++) {
+            kernel[n] = Math.pow(0.9, n);
+        }
+
+        KernelTailTrimmer.TrimResult result = trimmer.trim(kernel);
+
+        // 0.9^n loses 60 dB of remaining energy only in its last few taps
+        assertThat(result.kernel().length).isBetween(60, 64);
+        assertThat(result.kernel()).containsExactly(Arrays.copyOf(kernel, result.kernel().length));
+        assertThat(result.errorDb()).isLessThanOrEqualTo(KernelTailTrimmer.DEFAULT_THRESHOLD_DB);
+    }
+
+    @Test
+    void givenTwoTapKernel_whenTrimming_thenLeavesItUntouched() {
+        KernelTailTrimmer.TrimResult result = trimmer.trim(new double[]{1.0, 0.5});
+
+        assertThat(result.kernel()).containsExactly(1.0, 0.5);
+        assertThat(result.samplesSaved()).isZero();
+    }
+
+    @Test
+    void givenSlowDecay_whenTrimming_thenErrorStaysBelowThreshold() {
+        double[] kernel = new double[2000];
+        for (int n = 0; n < kernel.length; n++) {
+            kernel[n] = Math.exp(-n / 1500.0);
+        }
+
+        KernelTailTrimmer.TrimResult result = trimmer.trim(kernel);
+
+        assertThat(result.errorDb()).isLessThanOrEqualTo(KernelTailTrimmer.DEFAULT_THRESHOLD_DB);
+        assertThat(result.kernel().length).isGreaterThan(1900);
+    }
+
+    @Test
+    void givenSilentKernel_whenTrimming_thenKeepsOneSample() {
+        KernelTailTrimmer.TrimResult result = trimmer.trim(new double[100]);
+
+        assertThat(result.kernel()).containsExactly(0.0);
+        assertThat(result.samplesSaved()).isEqualTo(99);
+    }
+
+    @Test
+    void givenNonNegativeThreshold_whenCreating_thenThrowsException() {
+        assertThatThrownBy(() -> new KernelTailTrimmer(0.0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("thresholdDb must be negative");
+    }
+
+    private static double maxSquare(double[] values) {
+        double max = 0.0;
+        for (double value : values) {
+            max = Math.max(max, value * value);
+        }
+        return max;
+    }
+}
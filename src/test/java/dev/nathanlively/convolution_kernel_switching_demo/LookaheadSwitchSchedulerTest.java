@@ -0,0 +1,75 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class LookaheadSwitchSchedulerTest {
+    private static final int sampleRate = 44100;
+
+    @Test
+    void givenSwitchRequestedAtSinePeak_whenStreaming_thenSwitchesNearZeroCrossingWithinTolerance() {
+        double[] signal = sine(440, 172 * 256);
+        int blockSize = 256;
+        int tolerance = 2205;
+        long target = 10025; // a peak of the 440 Hz sine
+        LookaheadSwitchScheduler scheduler =
+                new LookaheadSwitchScheduler(new double[]{1.0}, blockSize, sampleRate, tolerance, tolerance);
+
+        scheduler.requestSwitch(new double[]{0.9}, target);
+        double[] output = stream(scheduler, signal);
+
+        long switchIndex = scheduler.lastAppliedSwitch();
+        assertThat(switchIndex).isBetween(target, target + tolerance);
+        assertThat(Math.abs(signal[(int) switchIndex])).isLessThan(0.01);
+
+        int latency = scheduler.latencySamples();
+        for (int n = latency; n < output.length; n++) {
+            int inputIndex = n - latency;
+            double gain = inputIndex < switchIndex ? 1.0 : 0.9;
+            assertThat(output[n]).isCloseTo(signal[inputIndex] * gain, within(1e-12));
+        }
+    }
+
+    @Test
+    void givenNoRequests_whenStreaming_thenOutputIsDelayedByLatency() {
+        double[] signal = sine(1000, 4096);
+        LookaheadSwitchScheduler scheduler =
+                new LookaheadSwitchScheduler(new double[]{1.0}, 128, sampleRate, 300, 100);
+
+        double[] output = stream(scheduler, signal);
+
+        assertThat(scheduler.lastAppliedSwitch()).isEqualTo(-1);
+        assertThat(Arrays.copyOfRange(output, 300, output.length))
+                .containsExactly(Arrays.copyOfRange(signal, 0, signal.length - 300), within(1e-12));
+    }
+
+    @Test
+    void givenLookaheadShorterThanTolerance_whenCreating_thenThrowsException() {
+        assertThatThrownBy(() -> new LookaheadSwitchScheduler(new double[]{1.0}, 128, sampleRate, 100, 200))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("lookaheadSamples");
+    }
+
+    private static double[] stream(LookaheadSwitchScheduler scheduler, double[] signal) {
+        int blockSize = scheduler.blockSize();
+        double[] output = new double[signal.length];
+        for (int start = 0; start + blockSize <= signal.length; start += blockSize) {
+            double[] block = scheduler.process(Arrays.copyOfRange(signal, start, start + blockSize));
+            System.arraycopy(block, 0, output, start, blockSize);
+        }
+        return output;
+    }
+
+    private static double[] sine(double frequency, int length) {
+        double[] signal = new double[length];
+        for (int i = 0; i < length; i++) {
+            signal[i] = Math.sin(2 * Math.PI * frequency * i / sampleRate);
+        }
+        return signal;
+    }
+}
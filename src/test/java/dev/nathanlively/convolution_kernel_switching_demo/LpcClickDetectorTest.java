@@ -0,0 +1,80 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LpcClickDetectorTest {
+
+    @Test
+    void givenCleanSine_whenDetecting_thenReportsNoClicks() {
+        double[] sine = AudioSignals.generateSineWave(440, 2.0, 44100);
+
+        assertThat(LpcClickDetector.detect(sine)).isEmpty();
+    }
+
+    @Test
+    void givenSilence_whenDetecting_thenReportsNoClicks() {
+        assertThat(LpcClickDetector.detect(new double[44100])).isEmpty();
+    }
+
+    @Test
+    void givenSineWithGainStepAtPeak_whenDetecting_thenReportsItsLocation() {
+        double[] sine = AudioSignals.generateSineWave(440, 1.0, 44100);
+        // A 440 Hz sine peaks every 44100 / 440 samples, starting a quarter period in
+        int stepIndex = (int) Math.round(44100.0 / 440 * (199 + 0.25));
+        for (int i = stepIndex; i < sine.length; i++) {
+            sine[i] *= 0.9;
+        }
+
+        long[] clicks = LpcClickDetector.detect(sine);
+
+        assertThat(clicks).hasSize(1);
+        assertThat(clicks[0]).isBetween(stepIndex - 2L, stepIndex + 2L);
+    }
+
+    @Test
+    void givenSineWithOffsetStepAtPeak_whenDetecting_thenReportsItsLocation() {
+        double[] sine = AudioSignals.generateSineWave(440, 1.0, 44100);
+        int stepIndex = (int) Math.round(44100.0 / 440 * (199 + 0.25));
+        for (int i = stepIndex; i < sine.length; i++) {
+            sine[i] += 0.1;
+        }
+
+        long[] clicks = LpcClickDetector.detect(sine);
+
+        assertThat(clicks).hasSize(1);
+        assertThat(clicks[0]).isBetween(stepIndex - 2L, stepIndex + 2L);
+    }
+
+    @Test
+    void givenNoiseWithImpulses_whenStreamingInBlocks_thenReportsEachImpulse() {
+        Random random = new Random(3);
+        double[] noise = new double[44100];
+        for (int i = 0; i < noise.length; i++) {
+            noise[i] = 0.01 * random.nextGaussian();
+        }
+        int[] impulses = {5_000, 17_333, 30_000};
+        for (int index : impulses) {
+            noise[index] += 0.5;
+        }
+
+        LpcClickDetector detector = new LpcClickDetector();
+        for (int start = 0; start < noise.length; start += 100) {
+            detector.push(noise, start, Math.min(100, noise.length - start));
+        }
+
+        assertThat(detector.samplesSeen()).isEqualTo(noise.length);
+        assertThat(detector.clicks()).containsExactly(5_000L, 17_333L, 30_000L);
+    }
+
+    @Test
+    void givenOrderLongerThanQuarterFrame_whenCreating_thenThrowsException() {
+        assertThatThrownBy(() -> new LpcClickDetector(200, 15.0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("order");
+    }
+}
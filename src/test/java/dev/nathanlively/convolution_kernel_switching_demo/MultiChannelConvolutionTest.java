@@ -0,0 +1,56 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class MultiChannelConvolutionTest {
+    private final MultiChannelConvolution convolution = new MultiChannelConvolution();
+    private final Convolution reference = new OverlapSaveAdapter();
+
+    @Test
+    void givenStereo_whenConvolving_thenEachChannelMatchesOverlapSave() {
+        double[][] channels = {
+                new Random(137).doubles(20000, -1, 1).toArray(),
+                new Random(139).doubles(20000, -1, 1).toArray()
+        };
+        double[] kernel = new Random(149).doubles(1500, -1, 1).toArray();
+
+        WavFileReader.MultiChannelWavFile actual = convolution.with(
+                new WavFileReader.MultiChannelWavFile(44100, channels), kernel);
+
+        assertThat(actual.sampleRate()).isEqualTo(44100);
+        assertThat(actual.channelCount()).isEqualTo(2);
+        for (int c = 0; c < 2; c++) {
+            assertThat(actual.getChannel(c)).as("channel %d", c)
+                    .containsExactly(reference.with(channels[c], kernel), within(1e-9));
+        }
+    }
+
+    @Test
+    void givenOddChannelCount_whenConvolving_thenLastChannelIsConvolvedAlone() {
+        double[][] channels = new double[3][];
+        for (int c = 0; c < 3; c++) {
+            channels[c] = new Random(151 + c).doubles(3000, -1, 1).toArray();
+        }
+        double[] kernel = new Random(163).doubles(100, -1, 1).toArray();
+
+        double[][] actual = convolution.with(channels, kernel);
+
+        for (int c = 0; c < 3; c++) {
+            assertThat(actual[c]).as("channel %d", c)
+                    .containsExactly(reference.with(channels[c], kernel), within(1e-9));
+        }
+    }
+
+    @Test
+    void givenChannelsOfDifferentLengths_whenConvolving_thenThrowsException() {
+        assertThatThrownBy(() -> convolution.with(new double[][]{{1, 2}, {1}}, new double[]{1.0}))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("all channels must have the same length");
+    }
+}
@@ -0,0 +1,35 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class NonUniformPartitionedConvolverTest {
+
+    @Test
+    void givenBlocks_whenProcessing_thenMatchesOverlapSave() {
+        double[] kernel = new Random(97).doubles(3000, -1, 1).toArray();
+        double[] signal = new Random(101).doubles(32 * 200, -1, 1).toArray();
+        NonUniformPartitionedConvolver convolver = new NonUniformPartitionedConvolver(kernel, 32, 256);
+
+        double[] actual = new double[signal.length];
+        for (int start = 0; start < signal.length; start += 32) {
+            System.arraycopy(convolver.process(Arrays.copyOfRange(signal, start, start + 32)), 0, actual, start, 32);
+        }
+
+        double[] expected = new OverlapSaveAdapter().with(signal, kernel);
+        assertThat(actual).containsExactly(Arrays.copyOf(expected, signal.length), within(1e-9));
+    }
+
+    @Test
+    void givenTailBlockNotAMultipleOfBlock_whenCreating_thenThrowsException() {
+        assertThatThrownBy(() -> new NonUniformPartitionedConvolver(new double[1000], 32, 48))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("tailBlockSize must be a larger multiple of blockSize");
+    }
+}
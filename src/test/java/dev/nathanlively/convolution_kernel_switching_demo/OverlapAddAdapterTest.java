@@ -0,0 +1,87 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class OverlapAddAdapterTest {
+    private final Convolution convolution = new OverlapAddAdapter();
+
+    @Test
+    void givenSingleKernel_whenConvolving_thenMatchesOverlapSave() {
+        double[] signal = new Random(11).doubles(10000, -1, 1).toArray();
+        double[] kernel = new Random(13).doubles(700, -1, 1).toArray();
+
+        double[] actual = convolution.with(signal, kernel);
+
+        assertThat(actual).containsExactly(new OverlapSaveAdapter().with(signal, kernel), within(1e-9));
+    }
+
+    @Test
+    void givenSwitchingKernels_whenConvolving_thenEachPeriodRingsOutThroughItsOwnKernel() {
+        double[] signal = new Random(17).doubles(5000, -1, 1).toArray();
+        double[] kernel1 = new Random(19).doubles(300, -1, 1).toArray();
+        double[] kernel2 = new Random(23).doubles(300, -1, 1).toArray();
+        int periodSamples = 1000;
+
+        double[] actual = convolution.with(signal, List.of(kernel1, kernel2), periodSamples);
+
+        // Input-based switching is the sum of each kernel applied to the periods it owns
+        double[] signal1 = signal.clone();
+        double[] signal2 = signal.clone();
+        for (int n = 0; n < signal.length; n++) {
+            if ((n / periodSamples) % 2 == 0) {
+                signal2[n] = 0.0;
+            } else {
+                signal1[n] = 0.0;
+            }
+        }
+        double[] expected1 = directConvolution(signal1, kernel1);
+        double[] expected2 = directConvolution(signal2, kernel2);
+        assertThat(actual).hasSize(signal.length + kernel1.length - 1);
+        for (int n = 0; n < actual.length; n++) {
+            assertThat(actual[n]).as("sample %d", n).isCloseTo(expected1[n] + expected2[n], within(1e-9));
+        }
+    }
+
+    @Test
+    void givenSwitchingKernels_whenComparedToOverlapSave_thenOnlyTheSamplesAfterEachSwitchDiffer() {
+        double[] signal = new Random(29).doubles(4000, -1, 1).toArray();
+        double[] kernel1 = new Random(31).doubles(100, -1, 1).toArray();
+        double[] kernel2 = new Random(37).doubles(100, -1, 1).toArray();
+        int periodSamples = 1000;
+
+        double[] overlapAdd = convolution.with(signal, List.of(kernel1, kernel2), periodSamples);
+        double[] overlapSave = new OverlapSaveAdapter().with(signal, List.of(kernel1, kernel2), periodSamples);
+
+        for (int n = 0; n < overlapAdd.length; n++) {
+            int intoPeriod = n % periodSamples;
+            if (intoPeriod >= kernel1.length - 1) {
+                assertThat(overlapAdd[n]).as("sample %d", n).isCloseTo(overlapSave[n], within(1e-9));
+            }
+        }
+        assertThat(overlapAdd[periodSamples]).isNotCloseTo(overlapSave[periodSamples], within(1e-6));
+    }
+
+    @Test
+    void givenKernelsOfDifferentLengths_whenConvolving_thenThrowsException() {
+        assertThatThrownBy(() -> convolution.with(new double[]{1, 2, 3}, List.of(new double[]{1}, new double[]{1, 2}), 2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("all kernels must have the same length");
+    }
+
+    private static double[] directConvolution(double[] signal, double[] kernel) {
+        double[] result = new double[signal.length + kernel.length - 1];
+        for (int n = 0; n < signal.length; n++) {
+            for (int k = 0; k < kernel.length; k++) {
+                result[n + k] += signal[n] * kernel[k];
+            }
+        }
+        return result;
+    }
+}
@@ -7,9 +7,11 @@ import org.junit.jupiter.api.Test;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
 
 class OverlapSaveAdapterTest {
     private static final double precision = 1e-15;
@@ -209,6 +211,83 @@ class OverlapSaveAdapterTest {
                 .containsExactly(expected);
     }
 
+    @Test
+    void givenCrossfade_whenSwitchingKernels_thenBlendsOutputsOverFadeLength() {
+        double[] signal = Arrays.copyOf(AudioSignals.generateSineWave(441, 1.0, 44100), 441);
+        double[] kernel1 = {1.0, 0.5};
+        double[] kernel2 = {-0.5, 0.25};
+        int periodSamples = 100;
+        int fadeLength = 16;
+
+        double[] actual = new OverlapSaveAdapter(SwitchCrossfade.fixed(fadeLength))
+                .with(signal, List.of(kernel1, kernel2), periodSamples);
+
+        double[][] outputs = {convolution.with(signal, kernel1), convolution.with(signal, kernel2)};
+        for (int n = 0; n < actual.length; n++) {
+            int block = n / periodSamples;
+            double[] current = outputs[block % 2];
+            int intoBlock = n % periodSamples;
+            double expected = current[n];
+            if (block > 0 && intoBlock < fadeLength) {
+                double sine = Math.sin(0.5 * Math.PI * (intoBlock + 0.5) / fadeLength);
+                expected = sine * sine * current[n] + (1 - sine * sine) * outputs[(block + 1) % 2][n];
+            }
+            assertThat(actual[n]).as("sample %d", n).isCloseTo(expected, within(1e-12));
+        }
+    }
+
+    @Test
+    void givenSparseKernelsAndCrossfade_whenSwitching_thenSparseAndFftPathsAgree() {
+        double[] signal = new Random(29).doubles(2000, -1, 1).toArray();
+        List<double[]> kernels = List.of(
+                new double[]{0.0, 0.8, 0.0, 0.0, -0.3, 0.0},
+                new double[]{0.5, 0.0, 0.0, 0.0, 0.0, 0.2},
+                new double[]{0.0, 0.0, 1.0, 0.0, 0.0, 0.0});
+        SwitchCrossfade crossfade = (s, previous, next, index) -> 10 + index % 37;
+
+        double[] sparse = new OverlapSaveAdapter(crossfade).with(signal, kernels, 150);
+        double[] fft = new OverlapSaveAdapter(crossfade, false).with(signal, kernels, 150);
+
+        assertThat(sparse).containsExactly(fft, within(1e-12));
+    }
+
+    @Test
+    void givenFadeLongerThanPeriod_whenSwitchingKernels_thenFadesAcrossWholeBlock() {
+        double[] signal = Arrays.copyOf(AudioSignals.generateSineWave(441, 1.0, 44100), 300);
+        List<double[]> kernels = List.of(new double[]{1.0}, new double[]{0.0});
+
+        double[] actual = new OverlapSaveAdapter(SwitchCrossfade.fixed(1000)).with(signal, kernels, 100);
+
+        for (int n = 100; n < 200; n++) {
+            double sine = Math.sin(0.5 * Math.PI * (n - 100 + 0.5) / 100);
+            assertThat(actual[n]).isCloseTo((1 - sine * sine) * signal[n], within(1e-12));
+        }
+    }
+
+    @Test
+    void givenKernelsOfDifferentLengths_whenConvolvingEach_thenMatchesSeparateConvolutions() {
+        Random random = new Random(23);
+        double[] signal = random.doubles(5000, -1, 1).toArray();
+        List<double[]> kernels = List.of(
+                random.doubles(1, -1, 1).toArray(),
+                random.doubles(100, -1, 1).toArray(),
+                random.doubles(700, -1, 1).toArray());
+
+        List<double[]> actual = convolution.withEach(signal, kernels);
+
+        assertThat(actual).hasSize(3);
+        for (int i = 0; i < kernels.size(); i++) {
+            assertThat(actual.get(i)).containsExactly(convolution.with(signal, kernels.get(i)), within(1e-12));
+        }
+    }
+
+    @Test
+    void givenNoKernels_whenConvolvingEach_thenThrowsException() {
+        assertThatThrownBy(() -> convolution.withEach(new double[]{1, 2, 3}, List.of()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("kernels cannot be empty");
+    }
+
     @Test
     void testConvolutionWithAudioFiles() throws Exception {
         String fileNameKernel1 = "LakeMerrittBART.wav";
@@ -0,0 +1,84 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class PartitionedConvolverTest {
+    private static final int BLOCK_SIZE = 64;
+
+    @Test
+    void givenBlocks_whenProcessing_thenMatchesOverlapSave() {
+        double[] kernel = new Random(61).doubles(1000, -1, 1).toArray();
+        double[] signal = new Random(67).doubles(BLOCK_SIZE * 40, -1, 1).toArray();
+        PartitionedConvolver convolver = new PartitionedConvolver(kernel, BLOCK_SIZE);
+
+        double[] actual = processAll(convolver, signal, 0, signal.length);
+
+        double[] expected = new OverlapSaveAdapter().with(signal, kernel);
+        assertThat(convolver.partitionCount()).isEqualTo(16);
+        assertThat(actual).containsExactly(Arrays.copyOf(expected, signal.length), within(1e-9));
+    }
+
+    @Test
+    void givenChangeInOnePartition_whenUpdating_thenTransformsOnlyThatPartition() {
+        double[] kernel = new Random(71).doubles(1000, -1, 1).toArray();
+        PartitionedConvolver convolver = new PartitionedConvolver(kernel, BLOCK_SIZE);
+        double[] updated = kernel.clone();
+        updated[5 * BLOCK_SIZE + 3] += 0.1;
+
+        assertThat(convolver.updateKernel(updated)).isEqualTo(1);
+        assertThat(convolver.updateKernel(updated)).isZero();
+    }
+
+    @Test
+    void givenUpdate_whenProcessingNextBlock_thenWholeBlockUsesNewKernel() {
+        double[] kernel = new Random(73).doubles(500, -1, 1).toArray();
+        double[] updated = kernel.clone();
+        for (int n = 200; n < 260; n++) {
+            updated[n] *= 0.5;
+        }
+        double[] signal = new Random(79).doubles(BLOCK_SIZE * 30, -1, 1).toArray();
+        PartitionedConvolver convolver = new PartitionedConvolver(kernel, BLOCK_SIZE);
+        int switchSample = BLOCK_SIZE * 12;
+
+        double[] before = processAll(convolver, signal, 0, switchSample);
+        assertThat(convolver.updateKernel(updated)).isEqualTo(2);
+        double[] after = processAll(convolver, signal, switchSample, signal.length);
+
+        double[] expectedBefore = new OverlapSaveAdapter().with(signal, kernel);
+        double[] expectedAfter = new OverlapSaveAdapter().with(signal, updated);
+        assertThat(before).containsExactly(Arrays.copyOf(expectedBefore, switchSample), within(1e-9));
+        assertThat(after).containsExactly(Arrays.copyOfRange(expectedAfter, switchSample, signal.length), within(1e-9));
+    }
+
+    @Test
+    void givenKernelLongerThanCapacity_whenUpdating_thenThrowsException() {
+        PartitionedConvolver convolver = new PartitionedConvolver(new double[100], BLOCK_SIZE);
+
+        assertThatThrownBy(() -> convolver.updateKernel(new double[129]))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("kernel cannot be longer than the convolver capacity");
+    }
+
+    @Test
+    void givenBlockSizeNotPowerOfTwo_whenCreating_thenThrowsException() {
+        assertThatThrownBy(() -> new PartitionedConvolver(new double[10], 100))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("blockSize must be a positive power of two");
+    }
+
+    private static double[] processAll(PartitionedConvolver convolver, double[] signal, int from, int to) {
+        double[] output = new double[to - from];
+        for (int start = from; start < to; start += BLOCK_SIZE) {
+            double[] block = convolver.process(Arrays.copyOfRange(signal, start, start + BLOCK_SIZE));
+            System.arraycopy(block, 0, output, start - from, BLOCK_SIZE);
+        }
+        return output;
+    }
+}
@@ -0,0 +1,59 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PerceptualModelTest {
+
+    @Test
+    void givenSameSampleRateAndFftSize_thenModelIsShared() {
+        assertThat(PerceptualModel.of(48000, 512)).isSameAs(PerceptualModel.of(48000, 512));
+        assertThat(PerceptualModel.of(48000, 512)).isNotSameAs(PerceptualModel.of(96000, 512));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {44100, 48000, 96000})
+    void givenSampleRate_thenBinThresholdsMatchInterpolatedBarkTable(int sampleRate) {
+        PerceptualModel model = PerceptualModel.of(sampleRate, 512);
+        KernelSwitchPopPredictor predictor = new KernelSwitchPopPredictor(sampleRate);
+
+        for (int bin = 0; bin <= 256; bin++) {
+            double frequency = (double) bin * sampleRate / 512;
+            assertThat(model.thresholdForBin(bin))
+                    .as("bin %d at %d Hz", bin, sampleRate)
+                    .isEqualTo(predictor.getThresholdForFrequency(frequency));
+        }
+    }
+
+    @Test
+    void givenIncreasingBins_thenBarkBandsNeverDecrease() {
+        PerceptualModel model = PerceptualModel.of(44100, 512);
+
+        for (int bin = 1; bin <= 256; bin++) {
+            assertThat(model.barkBandForBin(bin)).isGreaterThanOrEqualTo(model.barkBandForBin(bin - 1));
+        }
+        assertThat(model.barkBandForBin(0)).isEqualTo(0);
+        assertThat(model.barkBandForBin(256)).isEqualTo(KernelSwitchPopPredictor.BARK_CENTER_FREQUENCIES.length - 1);
+    }
+
+    @Test
+    void givenModel_thenThresholdBoundsEncloseEveryBin() {
+        PerceptualModel model = PerceptualModel.of(44100, 512);
+
+        for (int bin = 0; bin <= 256; bin++) {
+            assertThat(model.thresholdForBin(bin)).isBetween(model.minThreshold(), model.maxThreshold());
+        }
+        assertThat(model.maxThreshold()).isLessThanOrEqualTo(0.076);
+    }
+
+    @Test
+    void givenNonPowerOfTwoFftSize_thenThrowsException() {
+        assertThatThrownBy(() -> PerceptualModel.of(44100, 500))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("power of two");
+    }
+}
@@ -0,0 +1,52 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PredictiveCrossfadeTest {
+    private final PredictiveCrossfade crossfade = new PredictiveCrossfade(44100);
+
+    @Test
+    void givenInaudibleSwitch_thenKeepsHardCut() {
+        double[] sine = AudioSignals.generateSineWave(441, 1.0, 44100);
+
+        assertThat(crossfade.fadeLength(sine, new double[]{1.0}, new double[]{0.999}, 4425)).isZero();
+    }
+
+    @Test
+    void givenPolarityFlipAtSinePeak_thenUsesFullFade() {
+        double[] sine = AudioSignals.generateSineWave(441, 1.0, 44100);
+
+        assertThat(crossfade.fadeLength(sine, new double[]{1.0}, new double[]{-1.0}, 4425)).isEqualTo(256);
+    }
+
+    @Test
+    void givenSwitchAfterSignalEnds_thenKeepsHardCut() {
+        double[] sine = AudioSignals.generateSineWave(441, 1.0, 44100);
+
+        assertThat(crossfade.fadeLength(sine, new double[]{1.0}, new double[]{-1.0}, sine.length)).isZero();
+    }
+
+    @Test
+    void givenAudibleSwitches_whenConvolving_thenStepAtSwitchIsSmallerThanHardCut() {
+        double[] sine = AudioSignals.generateSineWave(441, 1.0, 44100);
+        List<double[]> kernels = List.of(new double[]{1.0}, new double[]{-1.0});
+        int periodSamples = 4425; // switches land near sine peaks
+
+        double[] hardCut = new OverlapSaveAdapter().with(sine, kernels, periodSamples);
+        double[] faded = new OverlapSaveAdapter(crossfade).with(sine, kernels, periodSamples);
+
+        assertThat(maxStep(faded)).isLessThan(maxStep(hardCut) / 10);
+    }
+
+    private static double maxStep(double[] signal) {
+        double max = 0.0;
+        for (int i = 1; i < signal.length; i++) {
+            max = Math.max(max, Math.abs(signal[i] - signal[i - 1]));
+        }
+        return max;
+    }
+}
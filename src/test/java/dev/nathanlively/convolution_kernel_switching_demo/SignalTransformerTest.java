@@ -1,5 +1,6 @@
 package dev.nathanlively.convolution_kernel_switching_demo;
 
+import org.apache.commons.numbers.complex.Complex;
 import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
@@ -84,4 +85,19 @@ class SignalTransformerTest {
         assertThat(Arrays.stream(powerSpectrum).allMatch(value -> value >= 0.0)).isTrue();
     }
 
-}
\ No newline at end of file
+    @Test
+    void givenBlockTransform_whenProcessingInTwoSteps_thenMatchesSingleStep() {
+        Random random = new Random(17);
+        double[] paddedSignal = new double[300];
+        for (int i = 0; i < paddedSignal.length; i++) {
+            paddedSignal[i] = random.nextGaussian();
+        }
+        Complex[] kernelTransform = SignalTransformer.fft(SignalTransformer.pad(new double[]{0.5, -0.25, 0.125}, 128));
+
+        double[] expected = SignalTransformer.processConvolutionBlock(paddedSignal, 200, 128, kernelTransform);
+        Complex[] inputTransform = SignalTransformer.transformBlock(paddedSignal, 200, 128);
+        double[] actual = SignalTransformer.processConvolutionBlock(inputTransform, kernelTransform);
+
+        assertThat(actual).containsExactly(expected, within(0.0));
+    }
+}
@@ -0,0 +1,52 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class SparseKernelTest {
+
+    @Test
+    void givenDelayPlusGain_whenDetecting_thenKeepsOnlyNonZeroTaps() {
+        SparseKernel kernel = SparseKernel.detect(new double[]{0, 0, 0.5, 0, 0, -0.25});
+
+        assertThat(kernel).isNotNull();
+        assertThat(kernel.length()).isEqualTo(6);
+        assertThat(kernel.offsets()).isEqualTo(new int[]{2, 5});
+        assertThat(kernel.gains()).isEqualTo(new double[]{0.5, -0.25});
+    }
+
+    @Test
+    void givenDenseKernel_whenDetecting_thenReturnsNull() {
+        double[] dense = new Random(67).doubles(SparseKernel.MAX_TAPS + 1, 0.1, 1).toArray();
+
+        assertThat(SparseKernel.detect(dense)).isNull();
+    }
+
+    @Test
+    void givenSparseKernels_whenSwitching_thenMatchesDirectConvolutionPerBlock() {
+        double[] signal = new Random(71).doubles(1000, -1, 1).toArray();
+        double[] gain = {0.8};
+        double[] delayedGain = {0, 0, 0, 0.5};
+        int periodSamples = 64;
+
+        double[] actual = new OverlapSaveAdapter().with(signal, List.of(padTo(gain, 4), delayedGain), periodSamples);
+
+        assertThat(actual).hasSize(signal.length + 3);
+        for (int n = 0; n < actual.length; n++) {
+            boolean gainBlock = (n / periodSamples) % 2 == 0;
+            double expected = gainBlock
+                    ? (n < signal.length ? 0.8 * signal[n] : 0.0)
+                    : (n >= 3 ? 0.5 * signal[n - 3] : 0.0);
+            assertThat(actual[n]).as("sample %d", n).isCloseTo(expected, within(0.0));
+        }
+    }
+
+    private static double[] padTo(double[] kernel, int length) {
+        return SignalTransformer.pad(kernel, length);
+    }
+}
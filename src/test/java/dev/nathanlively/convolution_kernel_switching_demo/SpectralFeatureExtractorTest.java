@@ -0,0 +1,87 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class SpectralFeatureExtractorTest {
+    private static final int SAMPLE_RATE = 44100;
+    private static final int FFT_SIZE = 512;
+    private SpectralFeatureExtractor extractor;
+
+    @BeforeEach
+    void setUp() {
+        extractor = new SpectralFeatureExtractor(FFT_SIZE);
+    }
+
+    @Test
+    void givenPowerSpectrum_whenSummarized_thenMatchesSeparateCalculators() {
+        double[] noise = new AudioSignalBuilder()
+                .withLength(FFT_SIZE)
+                .withWhiteNoise(0.8)
+                .withRandom(new Random(42))
+                .build();
+        double[] powerSpectrum = SignalTransformer.powerSpectrum(noise);
+
+        extractor.summarize(powerSpectrum);
+
+        assertThat(extractor.flatness())
+                .isCloseTo(new SpectralFlatnessCalculator().calculateFlatness(powerSpectrum), offset(1e-12));
+        assertThat(extractor.crest())
+                .isCloseTo(new SpectralCrestCalculator().calculateCrest(powerSpectrum), offset(1e-9));
+    }
+
+    @Test
+    void givenPowerSpectrum_whenSummarizedStatically_thenMatchesInstanceSummary() {
+        double[] powerSpectrum = SignalTransformer.powerSpectrum(new Random(7).doubles(FFT_SIZE, -1, 1).toArray());
+
+        SpectralFeatureExtractor.SpectrumSummary summary = SpectralFeatureExtractor.summary(powerSpectrum);
+        extractor.summarize(powerSpectrum);
+
+        assertThat(summary.flatness()).isEqualTo(extractor.flatness());
+        assertThat(summary.crest()).isEqualTo(extractor.crest());
+        assertThat(summary.peakBin()).isEqualTo(extractor.peakBin());
+    }
+
+    @Test
+    void givenSine_whenFrameAnalyzed_thenPeakBinAndFlatnessMatchWindowedSpectrum() {
+        double[] sine = AudioSignals.generateSineWave(1000, 1.0, SAMPLE_RATE);
+        int center = 10_000;
+
+        extractor.analyzeFrame(sine, center);
+
+        double[] window = SignalTransformer.createHannWindow(FFT_SIZE);
+        double[] windowed = Arrays.copyOfRange(sine, center - FFT_SIZE / 2, center + FFT_SIZE / 2);
+        for (int i = 0; i < FFT_SIZE; i++) {
+            windowed[i] *= window[i];
+        }
+        double[] powerSpectrum = SignalTransformer.powerSpectrum(windowed);
+        int expectedBin = (int) Math.round(1000.0 * FFT_SIZE / SAMPLE_RATE);
+
+        assertThat(extractor.peakBin()).isEqualTo(expectedBin);
+        assertThat(extractor.flatness())
+                .isCloseTo(new SpectralFlatnessCalculator().calculateFlatness(powerSpectrum), offset(1e-9));
+        assertThat(extractor.spectralFlux()).isZero();
+    }
+
+    @Test
+    void givenConsecutiveFrames_whenAnalyzed_thenFluxIsMeasuredAgainstPreviousFrame() {
+        double[] silenceThenNoise = new double[4096];
+        Random random = new Random(42);
+        for (int i = 2048; i < silenceThenNoise.length; i++) {
+            silenceThenNoise[i] = random.nextGaussian();
+        }
+
+        extractor.analyzeFrame(silenceThenNoise, 512);
+        double steadyFlux = extractor.analyzeFrame(silenceThenNoise, 640).spectralFlux();
+        double onsetFlux = extractor.analyzeFrame(silenceThenNoise, 3072).spectralFlux();
+
+        assertThat(steadyFlux).isZero();
+        assertThat(onsetFlux).isGreaterThan(1.0);
+    }
+}
@@ -0,0 +1,110 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class StreamingConvolverTest {
+    private static final double precision = 1e-12;
+
+    @Test
+    void givenSingleKernel_whenStreaming_thenMatchesOverlapSaveAdapter() {
+        Random random = new Random(42);
+        double[] signal = randomSignal(random, 1000);
+        double[] kernel = randomSignal(random, 37);
+        int blockSize = 128;
+
+        double[] expected = new OverlapSaveAdapter().with(signal, kernel);
+        double[] actual = stream(new StreamingConvolver(kernel, blockSize), signal, expected.length, null);
+
+        assertThat(actual).containsExactly(expected, within(precision));
+    }
+
+    @Test
+    void givenActivatedKernels_whenStreaming_thenSwitchesAtBlockBoundaries() {
+        Random random = new Random(7);
+        double[] signal = randomSignal(random, 1000);
+        double[] kernel1 = randomSignal(random, 16);
+        double[] kernel2 = randomSignal(random, 16);
+        int blockSize = 100;
+
+        double[] expected = new OverlapSaveAdapter().with(signal, List.of(kernel1, kernel2), blockSize);
+
+        StreamingConvolver convolver = new StreamingConvolver(kernel1, blockSize);
+        try (KernelPreparer preparer = new KernelPreparer()) {
+            List<PreparedKernel> prepared = List.of(
+                    preparer.prepare(kernel1, convolver.fftSize()).await(),
+                    preparer.prepare(kernel2, convolver.fftSize()).await());
+            double[] actual = stream(convolver, signal, expected.length, prepared);
+
+            assertThat(actual).containsExactly(expected, within(precision));
+        }
+    }
+
+    @Test
+    void givenMidBlockActivation_whenStreaming_thenSwitchesAtThatSample() {
+        Random random = new Random(11);
+        double[] signal = randomSignal(random, 512);
+        double[] kernel1 = randomSignal(random, 16);
+        double[] kernel2 = randomSignal(random, 16);
+        int blockSize = 128;
+        int switchIndex = 2 * blockSize + 45;
+
+        double[] before = new OverlapSaveAdapter().with(signal, kernel1);
+        double[] after = new OverlapSaveAdapter().with(signal, kernel2);
+
+        StreamingConvolver convolver = new StreamingConvolver(kernel1, blockSize);
+        double[] actual = new double[signal.length];
+        for (int start = 0; start < signal.length; start += blockSize) {
+            if (start == 2 * blockSize) {
+                convolver.activateAt(PreparedKernel.of(kernel2, convolver.fftSize()), switchIndex - start);
+            }
+            double[] block = convolver.process(Arrays.copyOfRange(signal, start, start + blockSize));
+            System.arraycopy(block, 0, actual, start, blockSize);
+        }
+
+        assertThat(Arrays.copyOfRange(actual, 0, switchIndex))
+                .containsExactly(Arrays.copyOfRange(before, 0, switchIndex), within(precision));
+        assertThat(Arrays.copyOfRange(actual, switchIndex, signal.length))
+                .containsExactly(Arrays.copyOfRange(after, switchIndex, signal.length), within(precision));
+    }
+
+    @Test
+    void givenKernelWithDifferentFftSize_whenActivating_thenThrowsException() {
+        StreamingConvolver convolver = new StreamingConvolver(new double[]{1.0, 0.5}, 64);
+
+        assertThatThrownBy(() -> convolver.activate(PreparedKernel.of(new double[]{1.0}, 256)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("fftSize");
+    }
+
+    private static double[] stream(StreamingConvolver convolver, double[] signal, int outputLength,
+                                   @Nullable List<PreparedKernel> cycle) {
+        int blockSize = convolver.blockSize();
+        double[] output = new double[outputLength];
+        double[] padded = Arrays.copyOf(signal, outputLength + blockSize);
+        for (int start = 0, blockIndex = 0; start < outputLength; start += blockSize, blockIndex++) {
+            if (cycle != null) {
+                convolver.activate(cycle.get(blockIndex % cycle.size()));
+            }
+            double[] block = convolver.process(Arrays.copyOfRange(padded, start, start + blockSize));
+            System.arraycopy(block, 0, output, start, Math.min(blockSize, outputLength - start));
+        }
+        return output;
+    }
+
+    private static double[] randomSignal(Random random, int length) {
+        double[] signal = new double[length];
+        for (int i = 0; i < length; i++) {
+            signal[i] = random.nextGaussian();
+        }
+        return signal;
+    }
+}
@@ -0,0 +1,55 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class StreamingFileRendererTest {
+    private static final double sixteenBitStep = 1.0 / 32767;
+    private final Path outputDir = Paths.get("target/test-outputs");
+
+    @Test
+    void givenStereoFile_whenRendering_thenMatchesOfflineConvolutionPerChannel() throws IOException {
+        Random random = new Random(41);
+        double[][] channels = {
+                AudioSignals.generateSineWave(440, 1.0, 44100),
+                random.doubles(44100, -0.5, 0.5).toArray()
+        };
+        double[] kernel = random.doubles(300, -0.05, 0.05).toArray();
+        Files.createDirectories(outputDir);
+        Path inputPath = outputDir.resolve("streaming-renderer-input.wav");
+        Path outputPath = outputDir.resolve("streaming-renderer-output.wav");
+        new WavFileWriter().saveToFile(44100, channels, inputPath);
+
+        long framesWritten = new StreamingFileRenderer(kernel, 1000, 2).render(inputPath, outputPath);
+
+        WavFileReader reader = new WavFileReader();
+        WavFileReader.MultiChannelWavFile input = reader.loadFromFile(inputPath.toString());
+        WavFileReader.MultiChannelWavFile output = reader.loadFromFile(outputPath.toString());
+        assertThat(framesWritten).isEqualTo(44100 + 300 - 1);
+        assertThat(output.channelCount()).isEqualTo(2);
+        assertThat(output.length()).isEqualTo(44100 + 300 - 1);
+        Convolution convolution = new OverlapSaveAdapter();
+        for (int c = 0; c < 2; c++) {
+            double[] expected = convolution.with(input.getChannel(c), kernel);
+            assertThat(output.getChannel(c)).as("channel %d", c).containsExactly(expected, within(sixteenBitStep));
+        }
+    }
+
+    @Test
+    void givenMissingInputFile_whenRendering_thenThrowsException() {
+        StreamingFileRenderer renderer = new StreamingFileRenderer(new double[]{1.0});
+
+        assertThatThrownBy(() -> renderer.render(outputDir.resolve("missing.wav"), outputDir.resolve("never.wav")))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("missing.wav");
+    }
+}
@@ -0,0 +1,56 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class StreamingSpectralFluxTest {
+    private StreamingSpectralFlux tracker;
+    private AudioTestHelper audioHelper;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new StreamingSpectralFlux();
+        audioHelper = new AudioTestHelper();
+    }
+
+    @Test
+    void givenFewerSamplesThanTwoWindows_thenNoFluxIsEmitted() {
+        double[] sine = AudioSignals.generateSineWave(440, 1.0, 44100);
+
+        tracker.push(sine, 0, 512 + 127);
+
+        assertThat(tracker.normalizedAverageFlux()).isZero();
+        assertThat(tracker.push(sine[639])).isTrue();
+    }
+
+    @Test
+    void givenSine_thenReturnNearZero() {
+        double[] sine = AudioSignals.generateSineWave(440, 1.0, 44100);
+
+        tracker.push(sine, 0, sine.length);
+
+        assertThat(tracker.normalizedAverageFlux()).isCloseTo(0.0, offset(0.01));
+    }
+
+    @Test
+    void givenSpeech_whenStreaming_thenMatchesCalculatorOverTrailingContext() {
+        double[] speech = audioHelper.loadFromClasspath("Lecture5sec.wav").signal();
+        SpectralFluxCalculator calculator = new SpectralFluxCalculator();
+
+        for (int i = 0; i < speech.length; i++) {
+            boolean emitted = tracker.push(speech[i]);
+            int seen = i + 1;
+            if (emitted && seen >= 4096 && seen % 8192 == 0) {
+                double expected = calculator.normalizedAverageFlux(Arrays.copyOfRange(speech, seen - 2048, seen));
+                assertThat(tracker.normalizedAverageFlux())
+                        .as("flux after %d samples", seen)
+                        .isCloseTo(expected, offset(1e-9));
+            }
+        }
+    }
+}
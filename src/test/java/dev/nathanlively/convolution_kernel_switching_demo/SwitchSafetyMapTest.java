@@ -0,0 +1,71 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class SwitchSafetyMapTest {
+    private static final int SAMPLE_RATE = 44100;
+    private KernelSwitchPopPredictor predictor;
+    private AudioTestHelper audioHelper;
+
+    @BeforeEach
+    void setUp() {
+        predictor = new KernelSwitchPopPredictor(SAMPLE_RATE);
+        audioHelper = new AudioTestHelper();
+    }
+
+    @Test
+    void givenIdenticalKernels_thenWholeSignalIsOneInaudibleRange() {
+        double[] signal = AudioSignals.generateSineWave(440, 1.0, SAMPLE_RATE);
+        double[] kernel = {0.5, 0.25};
+
+        SwitchSafetyMap map = predictor.mapSwitchSafety(signal, kernel, kernel);
+
+        assertThat(map.inaudibleRanges()).containsExactly(new SwitchSafetyMap.SampleRange(0, signal.length));
+    }
+
+    @Test
+    void givenSpeech_thenEachHopIsTheWorstPredictionWithinIt() {
+        double[] signal = audioHelper.loadFromClasspath("Lecture5sec.wav").signal();
+        double[] currentKernel = {0.2, 0.5, 0.3};
+        double[] candidateKernel = {0.9, 0.1};
+
+        SwitchSafetyMap map = predictor.mapSwitchSafety(signal, currentKernel, candidateKernel);
+
+        int hopSize = map.hopSize();
+        assertThat(map.hopCount()).isEqualTo((signal.length - 1 + hopSize / 2) / hopSize + 1);
+        int[] hopStarts = {hopSize * 100 - hopSize / 2, hopSize * 900 - hopSize / 2};
+        for (int hopStart : hopStarts) {
+            int[] indices = new int[hopSize];
+            for (int i = 0; i < hopSize; i++) {
+                indices[i] = hopStart + i;
+            }
+            double worst = 0.0;
+            for (PerceptualImpact impact : predictor.predictAudibility(signal, currentKernel, candidateKernel, indices)) {
+                worst = Math.max(worst, impact.ratio());
+            }
+            assertThat(map.impactAt(hopStart).ratio()).isCloseTo(worst, offset(worst * 1e-6));
+        }
+    }
+
+    @Test
+    void givenGainChangeOnSine_thenInaudibleRangesSurroundZeroCrossingsOnly() {
+        double[] signal = AudioSignals.generateSineWave(50, 1.0, SAMPLE_RATE);
+        double[] kernel1 = {1.0};
+        double[] kernel2 = {0.9};
+
+        SwitchSafetyMap map = predictor.mapSwitchSafety(signal, kernel1, kernel2);
+        List<SwitchSafetyMap.SampleRange> ranges = map.inaudibleRanges();
+
+        assertThat(ranges).isNotEmpty();
+        for (SwitchSafetyMap.SampleRange range : ranges) {
+            int middle = range.start() + range.length() / 2;
+            assertThat(Math.abs(signal[middle])).isLessThan(0.3);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package dev.nathanlively.convolution_kernel_switching_demo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TieredAudibilityEvaluatorTest {
+    private KernelSwitchPopPredictor predictor;
+    private TieredAudibilityEvaluator evaluator;
+    private double[] speech;
+
+    @BeforeEach
+    void setUp() {
+        predictor = new KernelSwitchPopPredictor(44100);
+        evaluator = new TieredAudibilityEvaluator(predictor);
+        speech = new AudioTestHelper().loadFromClasspath("Lecture5sec.wav").signal();
+    }
+
+    @Test
+    void givenTinyGainChange_thenDecidesInaudibleWithoutSpectralAnalysis() {
+        PerceptualImpact impact = evaluator.predictAudibility(speech, new double[]{1.0}, new double[]{0.999}, 50_000);
+
+        assertThat(impact.isInaudible()).isTrue();
+        assertThat(evaluator.decisions(TieredAudibilityEvaluator.Tier.BELOW_ALL_THRESHOLDS)).isEqualTo(1);
+        assertThat(evaluator.decisions(TieredAudibilityEvaluator.Tier.SPECTRAL_ANALYSIS)).isZero();
+    }
+
+    @Test
+    void givenPolarityFlipAtSinePeak_thenDecidesAudibleWithoutSpectralAnalysis() {
+        double[] sine = AudioSignals.generateSineWave(441, 1.0, 44100);
+
+        PerceptualImpact impact = evaluator.predictAudibility(sine, new double[]{1.0}, new double[]{-1.0}, 25);
+
+        assertThat(impact.isAudible()).isTrue();
+        assertThat(evaluator.decisions(TieredAudibilityEvaluator.Tier.ABOVE_ALL_THRESHOLDS)).isEqualTo(1);
+        assertThat(evaluator.decisions(TieredAudibilityEvaluator.Tier.SPECTRAL_ANALYSIS)).isZero();
+    }
+
+    @Test
+    void givenUncertainDiscontinuity_thenMatchesFullPrediction() {
+        double[] sine = AudioSignals.generateSineWave(441, 1.0, 44100);
+        double[] currentKernel = {1.0};
+        double[] candidateKernel = {0.95};
+
+        PerceptualImpact impact = evaluator.predictAudibility(sine, currentKernel, candidateKernel, 25);
+
+        assertThat(evaluator.decisions(TieredAudibilityEvaluator.Tier.SPECTRAL_ANALYSIS)).isEqualTo(1);
+        assertThat(impact).isEqualTo(predictor.predictAudibility(sine, currentKernel, candidateKernel, 25));
+    }
+
+    @Test
+    void givenRandomSwitchPoints_thenVerdictAlwaysAgreesWithFullPrediction() {
+        Random random = new Random(9);
+        double[] currentKernel = {1.0};
+        double[][] candidates = {{0.999}, {0.9}, {0.5}, {-1.0}};
+
+        for (int i = 0; i < 200; i++) {
+            int switchIndex = 2048 + random.nextInt(speech.length - 4096);
+            double[] candidateKernel = candidates[i % candidates.length];
+            assertThat(evaluator.predictAudibility(speech, currentKernel, candidateKernel, switchIndex).isAudible())
+                    .as("switch at %d to %s", switchIndex, candidateKernel[0])
+                    .isEqualTo(predictor.predictAudibility(speech, currentKernel, candidateKernel, switchIndex)
+                                       .isAudible());
+        }
+        long total = 0;
+        for (TieredAudibilityEvaluator.Tier tier : TieredAudibilityEvaluator.Tier.values()) {
+            total += evaluator.decisions(tier);
+        }
+        assertThat(total).isEqualTo(200);
+    }
+}